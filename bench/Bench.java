@@ -0,0 +1,167 @@
+/**
+ * Bench.java
+ * Times small operations the way a JMH benchmark in average time mode would:
+ * every operation is first warmed up so the JIT compiles it, then timed over
+ * several iterations of a fixed length. The results are printed as a table
+ * and can be written as JSON in the layout of JMH's JSON output, so the
+ * results of two builds can be compared with the same tools.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+public class Bench
+{
+	/*Number and length of the warm up and timed iterations*/
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final int ITERATIONS = 5;
+	private static final long ITERATION_NANOS = 200000000L;
+	/*Operations run between reads of the clock*/
+	private static final int BATCH = 64;
+	/*Student's t for a 99.9% confidence interval of 4 degrees of freedom, as JMH reports*/
+	private static final double T_999 = 8.610;
+
+	/*Only benchmarks whose names contain the filter are run*/
+	private final String filter;
+	private final List<Result> results;
+
+	/*Every result of every operation is folded in here so the JIT cannot drop the work*/
+	private int sink;
+
+	/**
+	 * Creates a runner
+	 * @param filter only benchmarks whose names contain it are run, or "" for all
+	 */
+	public Bench(String filter)
+	{
+		this.filter = filter;
+		results = new ArrayList<>();
+	}
+
+	/**
+	 * Times an operation and prints its result
+	 * @param name the name of the benchmark
+	 * @param fixture the name of the position it is run on, or "" for none
+	 * @param operation the operation, which returns any value depending on its work
+	 */
+	public void run(String name, String fixture, IntSupplier operation)
+	{
+		if(!name.contains(filter))
+			return;
+		for(int i = 0; i < WARMUP_ITERATIONS; i++)
+			iteration(operation);
+		double[] scores = new double[ITERATIONS];
+		for(int i = 0; i < ITERATIONS; i++)
+			scores[i] = iteration(operation);
+		Result result = new Result(name, fixture, scores);
+		results.add(result);
+		System.out.printf("%-45s %-14s %12.1f +- %8.1f ns/op%n", name, fixture, result.mean, result.error);
+	}
+
+	/**
+	 * Runs the operation for one iteration
+	 * @return the average nanoseconds per operation
+	 */
+	private double iteration(IntSupplier operation)
+	{
+		long operations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		int value = 0;
+		do
+		{
+			for(int i = 0; i < BATCH; i++)
+				value += operation.getAsInt();
+			operations += BATCH;
+			elapsed = System.nanoTime() - start;
+		}
+		while(elapsed < ITERATION_NANOS);
+		sink ^= value;
+		return (double) elapsed / operations;
+	}
+
+	/**
+	 * Writes every result so far as JSON
+	 * @param file the path of the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeJson(String file) throws IOException
+	{
+		try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)))
+		{
+			out.println("[");
+			for(int i = 0; i < results.size(); i++)
+			{
+				out.print(results.get(i).toJson());
+				out.println(i < results.size() - 1 ? "," : "");
+			}
+			out.println("]");
+		}
+	}
+
+	/**
+	 * @return the value folded from every operation, to be used so it is not optimized away
+	 */
+	public int getSink()
+	{
+		return sink;
+	}
+
+	/**
+	 * The timings of one benchmark
+	 */
+	private static class Result
+	{
+		private final String name;
+		private final String fixture;
+		private final double[] scores;
+		private final double mean;
+		private final double error;
+
+		Result(String name, String fixture, double[] scores)
+		{
+			this.name = name;
+			this.fixture = fixture;
+			this.scores = scores;
+			double sum = 0;
+			for(double score : scores)
+				sum += score;
+			mean = sum / scores.length;
+			double squares = 0;
+			for(double score : scores)
+				squares += (score - mean) * (score - mean);
+			error = T_999 * Math.sqrt(squares / (scores.length - 1)) / Math.sqrt(scores.length);
+		}
+
+		/**
+		 * @return the result in the layout of one benchmark of JMH's JSON output
+		 */
+		String toJson()
+		{
+			StringBuilder raw = new StringBuilder();
+			for(int i = 0; i < scores.length; i++)
+				raw.append(i == 0 ? "" : ", ").append(scores[i]);
+			return "  {\n"
+					+ "    \"benchmark\" : \"" + name + "\",\n"
+					+ "    \"mode\" : \"avgt\",\n"
+					+ "    \"params\" : { \"fixture\" : \"" + fixture + "\" },\n"
+					+ "    \"warmupIterations\" : " + WARMUP_ITERATIONS + ",\n"
+					+ "    \"measurementIterations\" : " + ITERATIONS + ",\n"
+					+ "    \"primaryMetric\" : {\n"
+					+ "      \"score\" : " + mean + ",\n"
+					+ "      \"scoreError\" : " + error + ",\n"
+					+ "      \"scoreUnit\" : \"ns/op\",\n"
+					+ "      \"rawData\" : [ [ " + raw + " ] ]\n"
+					+ "    }\n"
+					+ "  }";
+		}
+	}
+}
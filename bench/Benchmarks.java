@@ -0,0 +1,218 @@
+/**
+ * Benchmarks.java
+ * The benchmarks of the rules and layout code that run on every click:
+ * finding the clicked card of a CardStack, checking whether cards can be moved,
+ * laying out a stack after a move, drawing a stack, checking for finished runs, drawing from
+ * the draw stack, undoing many moves and making new deals.
+ * Each is run on a freshly dealt position, a position from the middle of a
+ * game with long stacks, and a position a few moves away from a win.
+ * Run from the command line, with src and bench compiled together, as:
+ *     java Benchmarks [-json file] [filter]
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import engine.Deals;
+import engine.Move;
+import engine.SpiderEngine;
+
+public class Benchmarks
+{
+	/*Distance between the y-coordinates clicked on a stack*/
+	private static final int CLICK_STEP = 5;
+	/*Height of a card, below the top of the last card of a stack*/
+	private static final int CARD_HEIGHT = 140;
+	/*Deal the fixtures are made from*/
+	private static final long SEED = 1;
+	/*Size of the image stacks are drawn into*/
+	private static final int IMAGE_WIDTH = 1000;
+	private static final int IMAGE_HEIGHT = 900;
+
+	private Benchmarks()
+	{
+	}
+
+	/**
+	 * Runs the benchmarks
+	 * @param args optionally -json and the file to write the results to,
+	 * then the part of the names of the benchmarks to run
+	 * @throws IOException if the results cannot be written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		System.setProperty("java.awt.headless", "true");
+		String json = null;
+		String filter = "";
+		for(int i = 0; i < args.length; i++)
+		{
+			if(args[i].equals("-json") && i + 1 < args.length)
+				json = args[++i];
+			else
+				filter = args[i];
+		}
+		Bench bench = new Bench(filter);
+		Fixture[] fixtures = {
+				Fixture.fresh(2, SEED),
+				Fixture.midGame(2, SEED),
+				Fixture.nearComplete(1, SEED)
+		};
+		for(Fixture fixture : fixtures)
+		{
+			stackBenchmarks(bench, fixture);
+			engineBenchmarks(bench, fixture);
+			componentBenchmarks(bench, fixture);
+		}
+		dealBenchmarks(bench);
+		if(json != null)
+			bench.writeJson(json);
+		if(bench.getSink() == 42)
+			System.out.println();
+	}
+
+	/**
+	 * Clicking on the longest stack of the fixture, and laying it out again after a move
+	 */
+	private static void stackBenchmarks(Bench bench, Fixture fixture)
+	{
+		SpiderEngine engine = fixture.engine();
+		int longest = fixture.longestStack();
+		CardStack stack = new CardStack(longest, engine);
+		Rectangle bounds = stack.getBounds();
+		final int[] ys = new int[(bounds.y + bounds.height) / CLICK_STEP + 1];
+		for(int i = 0; i < ys.length; i++)
+			ys[i] = i * CLICK_STEP;
+		final int[] next = new int[1];
+		bench.run("CardStack.getIndex", fixture.getName(), () -> {
+			int y = ys[next[0]++ % ys.length];
+			return stack.getIndex(y);
+		});
+		bench.run("CardStack.canMoveFrom", fixture.getName(), () -> {
+			int y = ys[next[0]++ % ys.length];
+			return stack.canMoveFrom(y, null) ? 1 : 0;
+		});
+		BufferedImage image = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		bench.run("CardStack.drawStack", fixture.getName(), () -> stack.drawStack(g));
+
+		int move = firstRun(engine);
+		if(move < 0)
+			return;
+		CardStack from = new CardStack(Move.from(move), engine);
+		CardStack to = new CardStack(Move.to(move), engine);
+		bench.run("CardStack.update after move and undo", fixture.getName(), () -> {
+			engine.apply(move);
+			from.update();
+			to.update();
+			engine.undo();
+			from.update();
+			return to.update() ? 1 : 0;
+		});
+	}
+
+	/**
+	 * Checking for finished runs, finding the legal moves and undoing every move of the fixture
+	 */
+	private static void engineBenchmarks(Bench bench, Fixture fixture)
+	{
+		SpiderEngine engine = fixture.engine();
+		bench.run("SpiderEngine.isRunComplete", fixture.getName(), () -> {
+			int complete = 0;
+			for(int i = 0; i < SpiderEngine.NUM_STACKS; i++)
+			{
+				if(engine.isRunComplete(i))
+					complete++;
+			}
+			return complete;
+		});
+		int[] buffer = new int[SpiderEngine.legalMovesBound()];
+		bench.run("SpiderEngine.legalMoves", fixture.getName(), () -> engine.legalMoves(buffer));
+
+		if(fixture.getMoves().length == 0)
+			return;
+		SpiderEngine chain = new SpiderEngine();
+		fixture.deal(chain);
+		bench.run("SpiderEngine.undo chain", fixture.getName(), () -> {
+			fixture.play(chain);
+			int undone = 0;
+			while(chain.undo())
+				undone++;
+			return undone;
+		});
+	}
+
+	/**
+	 * Painting the whole game, drawing from the draw stack, and undoing and redoing
+	 * every move of the fixture, including laying out the stacks after every change
+	 */
+	private static void componentBenchmarks(Bench bench, Fixture fixture)
+	{
+		GameComponent component = fixture.component();
+		BufferedImage image = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		bench.run("GameComponent.paintComponent", fixture.getName(), () -> {
+			component.paintComponent(g);
+			return image.getRGB(0, 0);
+		});
+		if(component.getEngine().canDraw())
+		{
+			bench.run("GameComponent.clickDeck", fixture.getName(), () -> {
+				component.clickDeck();
+				component.undo();
+				return component.getEngine().drawSize();
+			});
+		}
+
+		if(fixture.getMoves().length == 0)
+			return;
+		GameComponent chain = fixture.component();
+		bench.run("GameComponent.undo chain", fixture.getName(), () -> {
+			while(chain.getEngine().historySize() > 0)
+				chain.undo();
+			while(chain.getEngine().historySize() < fixture.getMoves().length)
+				chain.redo();
+			return chain.getEngine().historySize();
+		});
+	}
+
+	/**
+	 * Making new deals for every number of suits
+	 */
+	private static void dealBenchmarks(Bench bench)
+	{
+		int[] cards = new int[SpiderEngine.TOTAL_CARDS];
+		SpiderEngine engine = new SpiderEngine();
+		for(int suits : new int[] {1, 2, 4})
+		{
+			long[] seed = new long[1];
+			bench.run("Deals.deal", "suits=" + suits, () -> {
+				Deals.deal(seed[0]++, suits, cards);
+				return cards[0];
+			});
+			bench.run("SpiderEngine.deal", "suits=" + suits, () -> {
+				Deals.deal(seed[0]++, suits, cards);
+				engine.deal(cards);
+				return engine.cardAt(0, 5);
+			});
+		}
+	}
+
+	/**
+	 * @param engine a position
+	 * @return the first legal move of a run between stacks, or -1 if there is none
+	 */
+	private static int firstRun(SpiderEngine engine)
+	{
+		int[] moves = new int[SpiderEngine.legalMovesBound()];
+		int n = engine.legalMoves(moves);
+		for(int i = 0; i < n; i++)
+		{
+			if(Move.type(moves[i]) == Move.RUN)
+				return moves[i];
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * Fixture.java
+ * A position used by the benchmarks, kept as a deal and the moves played
+ * from it so that it can be made again as a SpiderEngine or a GameComponent.
+ * There are freshly dealt positions, positions from the middle of a game
+ * with long stacks, and positions a few moves away from a win.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+import java.util.Arrays;
+import engine.Deals;
+import engine.SpiderEngine;
+import sim.GreedyPlayer;
+import sim.Player;
+import solver.Solver;
+
+public class Fixture
+{
+	/*Moves the greedy player may make when looking for long stacks*/
+	private static final int MAX_MOVES = 2000;
+	/*Moves of the solution left to play in a position near the end*/
+	private static final int MOVES_LEFT = 15;
+
+	private final String name;
+	private final int suits;
+	private final long seed;
+	private final int[] moves;
+
+	/**
+	 * Creates a fixture
+	 * @param name the name shown with the results
+	 * @param suits the number of suits
+	 * @param seed the number of the deal
+	 * @param moves the moves played from the deal
+	 */
+	public Fixture(String name, int suits, long seed, int[] moves)
+	{
+		this.name = name;
+		this.suits = suits;
+		this.seed = seed;
+		this.moves = moves;
+	}
+
+	/**
+	 * @param suits the number of suits
+	 * @param seed the number of the deal
+	 * @return the position right after the deal
+	 */
+	public static Fixture fresh(int suits, long seed)
+	{
+		return new Fixture("fresh", suits, seed, new int[0]);
+	}
+
+	/**
+	 * Plays the deal with a GreedyPlayer and keeps the position with the longest stack
+	 * @param suits the number of suits
+	 * @param seed the number of the deal
+	 * @return a position from the middle of the game
+	 */
+	public static Fixture midGame(int suits, long seed)
+	{
+		SpiderEngine engine = new SpiderEngine();
+		engine.deal(Deals.deal(seed, suits));
+		Player player = new GreedyPlayer();
+		player.newGame(engine);
+		int[] buffer = new int[SpiderEngine.legalMovesBound()];
+		int[] played = new int[MAX_MOVES];
+		int made = 0;
+		int longest = 0;
+		int kept = 0;
+		while(made < MAX_MOVES && !engine.isOver())
+		{
+			int n = engine.legalMoves(buffer);
+			int move = n == 0 ? -1 : player.chooseMove(engine, buffer, n);
+			if(move < 0)
+				break;
+			engine.apply(move);
+			played[made++] = move;
+			for(int i = 0; i < SpiderEngine.NUM_STACKS; i++)
+			{
+				if(engine.size(i) > longest)
+				{
+					longest = engine.size(i);
+					kept = made;
+				}
+			}
+		}
+		return new Fixture("midGame", suits, seed, Arrays.copyOf(played, kept));
+	}
+
+	/**
+	 * Solves the deal and keeps the position a few moves before the win
+	 * @param suits the number of suits
+	 * @param seed the number of the deal, which must be winnable
+	 * @return a position near the end of the game
+	 */
+	public static Fixture nearComplete(int suits, long seed)
+	{
+		SpiderEngine engine = new SpiderEngine();
+		engine.deal(Deals.deal(seed, suits));
+		Solver solver = new Solver();
+		if(solver.solve(engine) != Solver.Result.WINNABLE)
+			throw new IllegalArgumentException("deal #" + seed + " was not solved");
+		int[] solution = solver.getSolution();
+		int kept = Math.max(0, solution.length - MOVES_LEFT);
+		return new Fixture("nearComplete", suits, seed, Arrays.copyOf(solution, kept));
+	}
+
+	/**
+	 * @return the name shown with the results
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * @return the moves played from the deal
+	 */
+	public int[] getMoves()
+	{
+		return moves;
+	}
+
+	/**
+	 * @return a new engine in the position of the fixture
+	 */
+	public SpiderEngine engine()
+	{
+		SpiderEngine engine = new SpiderEngine();
+		deal(engine);
+		play(engine);
+		return engine;
+	}
+
+	/**
+	 * Deals the cards of the fixture into the engine, without any moves
+	 * @param engine the engine to deal into
+	 */
+	public void deal(SpiderEngine engine)
+	{
+		engine.deal(Deals.deal(seed, suits));
+	}
+
+	/**
+	 * Plays the moves of the fixture
+	 * @param engine an engine that was just dealt the cards of the fixture
+	 */
+	public void play(SpiderEngine engine)
+	{
+		for(int move : moves)
+			engine.apply(move);
+	}
+
+	/**
+	 * @return a new GameComponent in the position of the fixture
+	 */
+	public GameComponent component()
+	{
+		GameComponent component = new GameComponent(suits, seed);
+		for(int move : moves)
+			component.getTimeline().play(move);
+		component.update();
+		return component;
+	}
+
+	/**
+	 * @return the index of the longest stack of the position
+	 */
+	public int longestStack()
+	{
+		SpiderEngine engine = engine();
+		int longest = 0;
+		for(int i = 1; i < SpiderEngine.NUM_STACKS; i++)
+		{
+			if(engine.size(i) > engine.size(longest))
+				longest = i;
+		}
+		return longest;
+	}
+}
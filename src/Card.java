@@ -4,6 +4,9 @@
  * Front side consists of a red card with white borders. Each Card has a suit 
  * (club, spade, diamond, heart) and number ranging from 1 to 13. 
  * The card is able to be drawn from Graphics. 
+ * There is only one Card of each suit and number, made when the class is loaded,
+ * and it never changes: where a card is on the screen and whether it is face down
+ * are kept by the CardStack that lays it out, so a game makes no Card objects.
  *
  * @author Briana Zhang & Lucy Zheng
  * Teacher: Ishman
@@ -15,11 +18,12 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.geom.RoundRectangle2D;
+import engine.SpiderEngine;
 
-public class Card implements Comparable
+public final class Card implements Comparable
 {
 	/*Self generated color red*/
-	private static Color RED = new Color(222, 34, 38);
+	private static final Color RED = new Color(222, 34, 38);
 	
 	/*Width and height of the card*/
 	private static final int H = 140;
@@ -32,65 +36,66 @@ public class Card implements Comparable
 	private static final int SPACE = 13;
 	/*Ratio of the diamond's height to width*/
 	private static final double RATIO = 5.0 / 4;
+	/*Fonts of the large and small numbers*/
+	private static final Font BIG_FONT = new Font("Century Gothic", Font.BOLD, 40);
+	private static final Font SMALL_FONT = new Font("Century Gothic", Font.BOLD, 20);
 	
 	/*String representation of type of suit*/
 	private static final String CLUB = "club";
 	private static final String SPADE = "spade";
 	private static final String HEART = "heart";
 	private static final String DIAMOND = "diamond";
+	/*Suits in the order the engine numbers them*/
+	private static final String[] SUITS = {SPADE, HEART, DIAMOND, CLUB};
+	/*Codes of the suits, as numbered by the engine*/
+	private static final int SPADE_CODE = 0;
+	private static final int HEART_CODE = 1;
+	private static final int DIAMOND_CODE = 2;
+	private static final int CLUB_CODE = 3;
 	
-	/*Represents the x and y coordinate of the top left of the card*/
-	private int x;
-	private int y;
+	/*The one card of each suit and number, numbered like the engine*/
+	private static final Card[] CARDS = new Card[SUITS.length * SpiderEngine.SUIT_CARDS];
+	
+	static
+	{
+		for(int i = 0; i < CARDS.length; i++)
+			CARDS[i] = new Card(i);
+	}
 
 	/*Represents the number of the card and type of suit*/
-	private int num;
-	private String suit;
+	private final int num;
+	private final int suitCode;
+	private final String suit;
+	/*The card as numbered by the engine*/
+	private final int code;
 	
 	/*Color of the card based on suit*/
-	private Color color;
-	
-	/*Whether or not the card is face down*/
-	private boolean ifBack;
-
-	/** Creates a representation of a card using the given coordinates and 
-	 * 	information about its suit and number, and whether or not it is facing up
-	 * @param x the x-coordinate of the top left corner of the card
-	 * @param y the y-coordinate of the top left corner of the card
-	 * @param suit the type of card (club, spade, heart, diamond)
-	 * @param num the number of the card
-	 * @param ifBack if the card is faced down or not
-	 */
-	public Card(int x, int y, String suit, int num, boolean ifBack)
-    {
-    	this.ifBack = ifBack;
-    	this.x = x;
-    	this.y = y;
-    	this.suit = suit;
-    	this.num = num;
-    	if(suit.equalsIgnoreCase(CLUB) || suit.equalsIgnoreCase(SPADE))
-    		color = Color.BLACK;
-    	else
-    		color = RED;
-    }
+	private final Color color;
 
-	/**
-	 * @return if the card is facing down or not
+	/** Creates a representation of a card from a card of the engine
+	 * @param code the card as numbered by the engine
 	 */
-	public boolean ifBack()
+	private Card(int code)
 	{
-		return ifBack;
+		this.code = code;
+		suitCode = SpiderEngine.suit(code);
+		num = SpiderEngine.num(code);
+		suit = SUITS[suitCode];
+		if(suitCode == CLUB_CODE || suitCode == SPADE_CODE)
+			color = Color.BLACK;
+		else
+			color = RED;
 	}
-	
+
 	/**
-	 * "flips" the card by changing whether or not 
-	 * 	the card is facing down
+	 * @param card the card as numbered by the engine
+	 * @return the one Card of that suit and number
 	 */
-	public void flip()
+	public static Card of(int card)
 	{
-		ifBack = !ifBack;
+		return CARDS[card];
 	}
-	
+
 	/**
 	 * @return the suit of the card
 	 */
@@ -108,68 +113,72 @@ public class Card implements Comparable
 	}
 	
 	/**
-	 * @return the x-coordinate of the top left corner of the card
-	 */
-	public int getX()
-	{
-		return x;
-	}
-	
-	/**
-	 * @return the y-coordinate of the top left corner of the card
+	 * Gives a physical representation of the area the card occupies
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
+	 * @return the RoundRectangle that takes up the area of the card
 	 */
-	public int getY()
+	public static RoundRectangle2D cardShape(int x, int y)
 	{
-		return y;
+		return new RoundRectangle2D.Double(x, y, W, H, ARC, ARC);
 	}
-	
+
 	/**
-	 * Changes whether or not the card is face up
-	 * @param ifBack
+	 * Draws the face of the card by copying
+	 * its pre-rendered image from the CardSprites
+	 * @param gr the graphics component used to draw the card
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
 	 */
-	public void setBack(boolean ifBack)
+	public void draw(Graphics2D gr, int x, int y)
 	{
-		this.ifBack = ifBack;
+		CardSprites.get(gr).draw(gr, code, false, x, y);
 	}
-	
+
 	/**
-	 * Changes the coordinates of the top left corner of the card 
-	 * with the given x and y values
-	 * @param newX the new x-coordinate of the top left corner of the card
-	 * @param newY the new x-coordinate of the top left corner of the card
+	 * Draws only the top of the face of the card, for a card that is covered
+	 * @param gr the graphics component used to draw the card
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
+	 * @param height the height of the part of the card drawn
 	 */
-	public void changeCoord(int newX, int newY)
+	public void drawTop(Graphics2D gr, int x, int y, int height)
 	{
-		x = newX;
-		y = newY;
+		CardSprites.get(gr).drawTop(gr, code, false, x, y, height);
 	}
-	
+
 	/**
-	 * Moves the card with the given change in the x direction and y direction
-	 * @param dx amount of change in the x direction
-	 * @param dy amount of change in the y direction
+	 * Draws only the top of the back of a card, for a card that is covered
+	 * @param gr the graphics component used to draw the card
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
+	 * @param height the height of the part of the card drawn
 	 */
-	public void move(int dx, int dy)
+	public static void drawBackTop(Graphics2D gr, int x, int y, int height)
 	{
-		x += dx;
-		y += dy;
+		CardSprites.get(gr).drawTop(gr, 0, true, x, y, height);
 	}
-	
+
 	/**
-	 * Gives a physical representation of the area the card occupies
-	 * @return the RoundRectangle that takes up the area of the card
+	 * Draws the back of a card, which is the same for every card
+	 * @param gr the graphics component used to draw the card
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
 	 */
-	public RoundRectangle2D cardShape()
+	public static void drawBack(Graphics2D gr, int x, int y)
 	{
-		RoundRectangle2D temp = new RoundRectangle2D.Double(x, y, W, H, ARC, ARC);
-		return temp;
+		CardSprites.get(gr).draw(gr, 0, true, x, y);
 	}
 
 	/**
-	 * Draws the card based off of its suit and number
+	 * Renders the card shape by shape, which is only done 
+	 * once per card face by the CardSprites
 	 * @param gr the graphics component used to draw the card
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
+	 * @param ifBack if the back of the card is rendered instead of its face
 	 */
-	public void draw(Graphics2D gr)
+	void render(Graphics2D gr, int x, int y, boolean ifBack)
 	{
 		RoundRectangle2D rect = new RoundRectangle2D.Double(x, y, W, H, ARC, ARC);
     	gr.setColor(Color.WHITE);
@@ -186,16 +195,16 @@ public class Card implements Comparable
 			gr.setColor(Color.BLACK);
 			gr.draw(innerRect);
 			gr.setColor(color);
-			if(suit.equalsIgnoreCase(CLUB))
-				drawClub(gr);
-			else if(suit.equalsIgnoreCase(SPADE))
-				drawSpade(gr);
-			else if(suit.equalsIgnoreCase(HEART))
-				drawHeart(gr);
+			if(suitCode == CLUB_CODE)
+				drawClub(gr, x, y);
+			else if(suitCode == SPADE_CODE)
+				drawSpade(gr, x, y);
+			else if(suitCode == HEART_CODE)
+				drawHeart(gr, x, y);
 			else
-				drawDiamond(gr);
-			drawBigNum(gr);
-			drawSmallNum(gr);
+				drawDiamond(gr, x, y);
+			drawBigNum(gr, x, y);
+			drawSmallNum(gr, x, y);
 		}
 	}
 
@@ -203,8 +212,10 @@ public class Card implements Comparable
 	 * Draws the club design, three circles and one triangle, twice.
 	 * A small version in the top left corner and a big version in the middle of the card. 
 	 * @param gr the graphics component used to draw the card
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
 	 */
-	private void drawClub(Graphics2D gr)
+	private void drawClub(Graphics2D gr, int x, int y)
 	{
 		//small club
 		y -= SPACE;
@@ -228,8 +239,10 @@ public class Card implements Comparable
 	 * Draws the spade design, two circles and two triangles, twice.
 	 * A small version in the top left corner and a big version in the middle of the card. 
 	 * @param gr the graphics component used to draw the card
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
 	 */
-	private void drawSpade(Graphics2D gr)
+	private void drawSpade(Graphics2D gr, int x, int y)
 	{
 		//tiny spade
 		y -= SPACE;
@@ -257,8 +270,10 @@ public class Card implements Comparable
 	 * Draws the heart design, two circles and a triangle, twice.
 	 * A small version in the top left corner and a big version in the middle of the card. 
 	 * @param gr the graphics component used to draw the card
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
 	 */
-	private void drawHeart(Graphics2D gr)
+	private void drawHeart(Graphics2D gr, int x, int y)
 	{
 		gr.fillOval(x + W/2 - DIAM, y + H/2 - DIAM, DIAM, DIAM);
 		gr.fillOval(x + W/2, y + H/2 - DIAM, DIAM, DIAM);
@@ -279,8 +294,10 @@ public class Card implements Comparable
 	 * Draws the diamond design twice.
 	 * A small version in the top left corner and a big version in the middle of the card. 
 	 * @param gr the graphics component used to draw the card
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
 	 */
-	private void drawDiamond(Graphics2D gr)
+	private void drawDiamond(Graphics2D gr, int x, int y)
 	{
 		int[] Xs = {x + W/2, x + W/2 - DIAM, x + W/2, x + W/2 + DIAM};
 		int[] Ys = {y + H/2 - (int)(DIAM*RATIO),
@@ -298,11 +315,12 @@ public class Card implements Comparable
 	/**
 	 * Draws the large number of the card in the center 
 	 * @param gr the graphics component used to draw the card
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
 	 */
-	private void drawBigNum(Graphics2D gr)
+	private void drawBigNum(Graphics2D gr, int x, int y)
 	{
-		Font f = new Font("Century Gothic", Font.BOLD, 40);
-		gr.setFont(f);
+		gr.setFont(BIG_FONT);
 		gr.setColor(Color.WHITE);
 		String number = num + "";
 		if(num == 1)
@@ -327,11 +345,12 @@ public class Card implements Comparable
 	/**
 	 * Draws the smaller number in the top left corner
 	 * @param gr the graphics component used to draw the card
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
 	 */
-	private void drawSmallNum(Graphics2D gr)
+	private void drawSmallNum(Graphics2D gr, int x, int y)
 	{
-		Font f = new Font("Century Gothic", Font.BOLD, 20);
-		gr.setFont(f);
+		gr.setFont(SMALL_FONT);
 		gr.setColor(Color.WHITE);
 		String number = num + "";
 		if(num == 1)
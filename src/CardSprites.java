@@ -0,0 +1,163 @@
+/**
+ * CardSprites.java
+ * Pre-rendered images of every card face and the card back.
+ * Each of the 52 faces and the back is drawn shape by shape only once
+ * into an image compatible with the screen, so drawing a card afterwards
+ * is a single copy of that image. The images are made for each graphics
+ * configuration and scale the cards are drawn at, such as the screen and
+ * the layers of the game, and the last few of them are kept.
+ * Sprites can be used by many threads at once.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import engine.SpiderEngine;
+
+public class CardSprites
+{
+	/*Width and height of the card*/
+	private static final int W = 100;
+	private static final int H = 140;
+
+	/*Number of distinct card faces*/
+	private static final int FACES = 4 * SpiderEngine.SUIT_CARDS;
+
+	/*Number of sets of sprites kept*/
+	private static final int KEPT = 4;
+
+	/*The sprites of the last graphics configurations and scales that were drawn on, newest last*/
+	private static volatile CardSprites[] kept = new CardSprites[0];
+
+	/*The graphics configuration and scale the images were made for*/
+	private final GraphicsConfiguration config;
+	private final double scaleX;
+	private final double scaleY;
+
+	/*Images of every card face, numbered like the engine, and of the back*/
+	private BufferedImage[] faces;
+	private BufferedImage back;
+
+	/*Whether or not the images are larger than the card because of screen scaling*/
+	private boolean scaled;
+
+	/**
+	 * Renders every card face and the back for the graphics configuration
+	 * @param config the graphics configuration the cards are drawn on
+	 * @param scaleX the horizontal scale the cards are drawn at
+	 * @param scaleY the vertical scale the cards are drawn at
+	 */
+	private CardSprites(GraphicsConfiguration config, double scaleX, double scaleY)
+	{
+		this.config = config;
+		this.scaleX = scaleX;
+		this.scaleY = scaleY;
+		scaled = scaleX != 1 || scaleY != 1;
+		faces = new BufferedImage[FACES];
+		for(int i = 0; i < FACES; i++)
+			faces[i] = render(Card.of(i), false, scaleX, scaleY);
+		back = render(Card.of(0), true, scaleX, scaleY);
+	}
+
+	/**
+	 * Gets the sprites for the graphics configuration and scale of a graphics component,
+	 * making them if they are not kept
+	 * @param gr the graphics component the cards are drawn with
+	 * @return the sprites for that configuration and scale
+	 */
+	public static CardSprites get(Graphics2D gr)
+	{
+		GraphicsConfiguration config = gr.getDeviceConfiguration();
+		AffineTransform tx = gr.getTransform();
+		CardSprites sprites = find(kept, config, tx.getScaleX(), tx.getScaleY());
+		if(sprites != null)
+			return sprites;
+		synchronized(CardSprites.class)
+		{
+			CardSprites[] all = kept;
+			sprites = find(all, config, tx.getScaleX(), tx.getScaleY());
+			if(sprites == null)
+			{
+				sprites = new CardSprites(config, tx.getScaleX(), tx.getScaleY());
+				int from = all.length < KEPT ? 0 : 1;
+				CardSprites[] newKept = Arrays.copyOfRange(all, from, all.length + 1);
+				newKept[newKept.length - 1] = sprites;
+				kept = newKept;
+			}
+			return sprites;
+		}
+	}
+
+	private static CardSprites find(CardSprites[] all, GraphicsConfiguration config, double scaleX, double scaleY)
+	{
+		for(CardSprites sprites : all)
+		{
+			if(sprites.config == config && sprites.scaleX == scaleX && sprites.scaleY == scaleY)
+				return sprites;
+		}
+		return null;
+	}
+
+	/**
+	 * Draws a card by copying its image
+	 * @param gr the graphics component used to draw the card
+	 * @param card the card as numbered by the engine
+	 * @param ifBack if the card is faced down or not
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
+	 */
+	public void draw(Graphics2D gr, int card, boolean ifBack, int x, int y)
+	{
+		BufferedImage image = ifBack ? back : faces[card];
+		if(scaled)
+			gr.drawImage(image, x, y, W, H, null);
+		else
+			gr.drawImage(image, x, y, null);
+	}
+
+	/**
+	 * Draws only the top of a card by copying that part of its image,
+	 * for a card that is covered by the cards on top of it
+	 * @param gr the graphics component used to draw the card
+	 * @param card the card as numbered by the engine
+	 * @param ifBack if the card is faced down or not
+	 * @param x the x-coordinate of the top left corner of the card
+	 * @param y the y-coordinate of the top left corner of the card
+	 * @param height the height of the part of the card drawn, at most the height of the card
+	 */
+	public void drawTop(Graphics2D gr, int card, boolean ifBack, int x, int y, int height)
+	{
+		BufferedImage image = ifBack ? back : faces[card];
+		int imageHeight = height >= H ? image.getHeight() : (int) Math.ceil((double) height * image.getHeight() / H);
+		gr.drawImage(image, x, y, x + W, y + height, 0, 0, image.getWidth(), imageHeight, null);
+	}
+
+	/**
+	 * Renders one card into a new image
+	 * @param card the card to render at (0, 0)
+	 * @param ifBack if the back of the card is rendered instead of its face
+	 * @param scaleX the horizontal scale of the screen
+	 * @param scaleY the vertical scale of the screen
+	 * @return the image of the card
+	 */
+	private BufferedImage render(Card card, boolean ifBack, double scaleX, double scaleY)
+	{
+		int width = (int) Math.ceil(W * scaleX);
+		int height = (int) Math.ceil(H * scaleY);
+		BufferedImage image;
+		if(config == null)
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		else
+			image = config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+		Graphics2D gr = image.createGraphics();
+		gr.scale(scaleX, scaleY);
+		card.render(gr, 0, 0, ifBack);
+		gr.dispose();
+		return image;
+	}
+}
@@ -1,9 +1,11 @@
 /**
  * CardStack.java
  * Representation of one of the ten stacks of the spider solitaire game
- * located at the top of the screen. Is able to remove and add cards based
- * off of the given y value.
- * The CardStack is able to be drawn with Graphics.
+ * located at the top of the screen. The cards themselves are kept by the
+ * SpiderEngine; the CardStack lays them out on the screen, finds the card
+ * at a given y value and is able to be drawn with Graphics.
+ * The cards and where they are drawn are kept in arrays of ints that are
+ * made once, so laying out a stack after a move makes no objects.
  *
  * @author Briana Zhang & Lucy Zheng
  * Teacher: Ishman
@@ -11,15 +13,21 @@
  * Period: 3
  */
 
-import java.util.*;
+import java.util.Arrays;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Shape;
+import java.awt.Rectangle;
 import java.awt.geom.RoundRectangle2D;
+import engine.SpiderEngine;
 
 public class CardStack
 {
-	private List<Card> pile;
+	/*The cards of the stack as numbered by the engine, the y-coordinate of the top
+	 * of each card, and the number of cards, of which the first numBacks are face down*/
+	private final int[] cards;
+	private final int[] cardYs;
+	private int size;
+	private SpiderEngine engine;
 	private int x;
 	private int numBacks;
 	private int stackNum;
@@ -28,185 +36,129 @@ public class CardStack
 	private static final int CARD_WIDTH = 100;
 	private static final int CARD_HEIGHT = 140;
 	private static final int ARC = 5;
-	private boolean ifTopFlipped;
 	
 	/**
 	 * Creates a new pile that represents all the cards inside the stack.
 	 * Discerns x-coordinate of the left side of the pile based on the given stack number.
 	 * @param stackNum, the number of the stack counted from the left from 0
+	 * @param engine the engine that holds the cards of the stack
 	 */
-    public CardStack(int stackNum)
+    public CardStack(int stackNum, SpiderEngine engine)
     {
-		pile = new ArrayList<Card>();
+		cards = new int[SpiderEngine.TOTAL_CARDS];
+		cardYs = new int[SpiderEngine.TOTAL_CARDS];
 		this.stackNum = stackNum;
+		this.engine = engine;
 		x = stackNum * CARD_WIDTH;
 		numBacks = 0;
+		update();
     }
     
     /**
-     * @return the x-coordinate of the left side of the stack
+     * Copies the layout of a stack, for drawing it on another thread
+     * @param other the stack to copy
      */
-    public int getStackX()
+    private CardStack(CardStack other)
     {
-    	return x; 
+    	cards = Arrays.copyOf(other.cards, other.size);
+    	cardYs = Arrays.copyOf(other.cardYs, other.size);
+    	size = other.size;
+    	stackNum = other.stackNum;
+    	engine = other.engine;
+    	x = other.x;
+    	numBacks = other.numBacks;
     }
     
     /**
-     * @return the current number of cards inside the stack
+     * @return a copy of the stack as it is laid out now, which is not changed by
+     * laying out the stack again, so it can be drawn on another thread
      */
-    public int size()
+    public CardStack copy()
     {
-    	return pile.size();
+    	return new CardStack(this);
     }
     
     /**
-     * @return whether or not the stack is empty
+     * @return the x-coordinate of the left side of the stack
      */
-    public boolean isEmpty()
+    public int getStackX()
     {
-    	return pile.isEmpty();
+    	return x; 
     }
     
     /**
-     * @return the Cards that are inside the stack
+     * @return the current number of cards inside the stack
      */
-    public ArrayList<Card> getPile()
+    public int size()
     {
-    	return (ArrayList<Card>) pile;
+    	return size;
     }
     
     /**
-     * Discerns whether or not a card can be added to the stack 
-     * based on the rules of spider solitaire.
-     * @param c the card that is tested to be moved onto this stack
-     * @return whether or not the card can be moved onto the stack
+     * @return whether or not the stack is empty
      */
-    public boolean allowMovementOnto(Card card)
+    public boolean isEmpty()
     {
-    	if (pile.isEmpty())
-    		return true;
-    	
-    	Card top = pile.get(pile.size() - 1);
-    	if (card.compareTo(top) == -1)
-    		return true;
-
-    	return false;
+    	return size == 0;
     }
     
     /**
-     * Adds a card, changing its coordinates and information based on
-     * if it is being added back or not.
-     * @param card the card to be added to the stack
-     * @param undo whether or not the card was being added back to the original position
+     * Lays out the cards of this stack as they are in the engine.
+     * Face down cards are spaced BACK_SPACE apart, followed by
+     * the face up cards spaced SPACE apart.
+     * Only the cards from the engine are copied, so no Card is made.
+     * @return whether or not any card of the stack changed
      */
-    public void add(Card card, boolean undo)
+    public boolean update()
     {
-    	if(undo)
+    	int newSize = engine.size(stackNum);
+    	int backs = engine.backs(stackNum);
+    	boolean changed = size != newSize || numBacks != backs;
+    	numBacks = backs;
+    	int y = 0;
+    	for(int i = 0; i < newSize; i++)
     	{
-    		pile.add(card);
-    		return;
+    		int code = engine.cardAt(stackNum, i);
+    		if(i < size && cards[i] != code)
+    			changed = true;
+    		cards[i] = code;
+    		cardYs[i] = y;
+    		y += i < numBacks ? BACK_SPACE : SPACE;
     	}
-    	int bottomY = 0;
-    	if(!pile.isEmpty())
-    		bottomY = pile.get(pile.size() - 1).getY() + BACK_SPACE;
-    	if(card.ifBack())
-    		numBacks++;
-    	card.changeCoord(x, bottomY);
-    	pile.add(card);
-    }
-    
-    /**
-     * Adds multiple cards to the stack assuming
-     * all the cards were originally face up and from another stack.
-     * @param cards
-     */
-    public void add(ArrayList<Card> cards)
-    {
-    	int bottomY = 0;
-    	if(!pile.isEmpty())
-    		bottomY = pile.get(pile.size() - 1).getY() + SPACE;
-    	for(int i = 0; i < cards.size(); i++)
-    	{
-    		Card card = cards.get(i);
-        	card.changeCoord(x, bottomY);
-        	pile.add(card);
-        	bottomY += SPACE;
-    	}    	
+    	size = newSize;
+    	return changed;
     }
     
     /**
-     * Calculates the cards that are from the y-coordinate downwards
-     * @param y the y-coordinate
-     * @return the list of cards starting from the y-coordinate
+     * @return the area of the screen the stack and its highlight can cover
      */
-    public ArrayList<Card> getFromY(int y)
+    public Rectangle getBounds()
     {
-    	ArrayList<Card> cards = new ArrayList<>();
-    	for(int i = getIndex(y); i < pile.size(); i++)
-    		cards.add(pile.get(i));
-    	return cards;
+    	int bottom = 0;
+    	if(size > 0)
+    		bottom = cardYs[size - 1] + CARD_HEIGHT;
+    	return new Rectangle(x - ARC, -2 * ARC, CARD_WIDTH + 2 * ARC, bottom + 4 * ARC);
     }
     
     /**
-     * Removes all cards from a y-coordinate downwards. 
-     * If this results in a card being flipped, it is recorded.
-     * If not, it is also recorded.
-     * @param y the y-coordinate
-     * @return the cards that are from the y-coordinate down
-     */
-    public ArrayList<Card> remove(int y)
-    {
-    	int i = getIndex(y);
-    	if(i < 0)
-    		return null;
-    	ArrayList<Card> cards = new ArrayList<>();
-		for(int j = i; j < pile.size(); j++)
-			cards.add(pile.get(j));
-		for(int j = pile.size() - 1; j >= i; j--)
-			pile.remove(j);
-		if(pile.isEmpty())
-			return cards;
-		Card top = pile.get(pile.size() - 1);
-		if(top.ifBack())
-		{
-			numBacks--;
-			top.setBack(false);
-			ifTopFlipped = true;
-		}
-		else
-			ifTopFlipped = false;
-		return cards;
-    }
-    
-    /**
-     * @return whether or not a card was flipped or not 
-     * after the last removal of cards
-     */
-    public boolean ifTopFlipped()
-    {
-    	return ifTopFlipped;
-    }
-    
-    /**
-     * Gets the index of the card at the given y-coordinate
+     * Gets the index of the card at the given y-coordinate.
+     * The index is worked out from the layout of the stack, without looking at the cards:
+     * face down cards cannot be clicked, every face up card but the last shows a strip
+     * SPACE high, and the last card shows all of its height.
      * @param y the y-coordinate on the screen
      * @return the index of the card that is at that y-coordinate for this stack
      */
-    private int getIndex(int y)
+    public int getIndex(int y)
     {
-    	if(pile.isEmpty())
+    	int top = size - 1;
+    	if(top < 0 || y < numBacks * BACK_SPACE)
     		return -1;
-    	int bottom = pile.get(pile.size() - 1).getY() + CARD_HEIGHT;
-    	if(y > bottom || y < numBacks * BACK_SPACE)
+    	int topY = cardYs[top];
+    	if(y >= topY + CARD_HEIGHT)
     		return -1;
-    	for(int i = pile.size() - 1; i >= 0; i--)
-    	{
-    		Card card = pile.get(i);
-    		Shape rect = card.cardShape();
-    		if(rect.contains(x + CARD_WIDTH/2, y))
-    				return i;
-    	}
-    	return -1;
+    	if(y >= topY)
+    		return top;
+    	return numBacks + (y - numBacks * BACK_SPACE) / SPACE;
     }
     
     /**
@@ -220,72 +172,86 @@ public class CardStack
     public boolean canMoveFrom(int y, Graphics2D g)
     {
     	int i = getIndex(y);
-    	if(i < 0)
+    	if(i < 0 || !engine.canMoveFrom(stackNum, i))
     		return false;
-    	Card card = pile.get(i);
-    	String suit = card.getSuit();
-    	for(int j = i + 1; j < pile.size(); j++)
+    	if(g != null)
+    		highlight(i, Color.magenta, g);
+    	return true;    	
+    }
+    
+    /**
+     * Highlights the top cards of the stack to show a hint,
+     * or outlines the place of the first card if the stack is empty
+     * @param count the number of cards to highlight
+     * @param color the color of the highlight
+     * @param g the graphics component used to paint the highlight
+     */
+    public void drawHint(int count, Color color, Graphics2D g)
+    {
+    	if(size == 0)
     	{
-    		Card temp = pile.get(j);
-    		if(!temp.getSuit().equals(suit) || temp.compareTo(card) != -1)
-    			return false;
-    		card = temp;
+    		g.setColor(color);
+    		g.draw(new RoundRectangle2D.Double(x, 0, CARD_WIDTH, CARD_HEIGHT, ARC, ARC));
+    		return;
     	}
-    	//return true;
-    	if(g == null)
-    		return true;
-    	else
-    		highlight(i, g);
-    	return true;    	
+    	highlight(Math.max(0, size - count), color, g);
     }
     
     /**
-     * Creates a magenta highlight around the cards that are able to be selected
+     * Creates a highlight around the cards that are able to be selected
      * @param i the index of the first card in the stack that can be highlighted
+     * @param color the color of the highlight
      * @param g the graphics component used to paint the highlight
      */
-    private void highlight(int i, Graphics2D g)
+    private void highlight(int i, Color color, Graphics2D g)
     {
-    	Card topCard = pile.get(i);
-    	int top = topCard.getY();
-    	int bottom = pile.get(pile.size() - 1).getY() + CARD_HEIGHT;
+    	int top = cardYs[i];
+    	int bottom = cardYs[size - 1] + CARD_HEIGHT;
     	top -= ARC * 2;
     	int X = x - ARC;
     	RoundRectangle2D rect = new RoundRectangle2D.Double(X, top, CARD_WIDTH + 2*ARC, bottom - top + 2*ARC, ARC, ARC);
-    	g.setColor(Color.magenta);
+    	g.setColor(color);
     	g.fill(rect);
-    	for(int j = i; j < pile.size(); j++)
-    		pile.get(j).draw(g);
+    	for(int j = i; j < size; j++)
+    		drawCard(j, g);
     }
     
     /**
-     * Draws the CardStack on the GameComponent by drawing each card
+     * Draws the CardStack on the GameComponent by drawing each card.
+     * Every card but the last is covered by the card on top of it, so only
+     * the strip of it that shows is drawn, along with the rounded corners
+     * of the card on top, and the last card is drawn whole. The area drawn
+     * for a stack is then never much more than the area it covers.
      * @param g the graphics component used to draw the cards in the stack
+     * @return the number of cards drawn
      */
-    public void drawStack(Graphics2D g)
-    {
-    	for(int i = 0; i < pile.size(); i++)
-    	{
-    		Card card = pile.get(i);
-    		card.draw(g);
-    	}
-    }
-
-    /**
-     * If the top card of the stack was flipped in the process to removing 
-     * a card/cards, when "undo"-ing the step, it is flipped back.
-     */
-    public void flipTopBack()
+    public int drawStack(Graphics2D g)
     {
-    	Card top = pile.get(pile.size() - 1);
-    	top.flip();
+    	for(int i = 0; i < size; i++)
+    		drawCard(i, g);
+    	return size;
     }
     
-    /*
-     * Removes the top card of the stack
+    /**
+     * Draws the part of one card of the stack that shows, where it is laid out,
+     * face down or face up
+     * @param i the index of the card
+     * @param g the graphics component used to draw the card
      */
-    public void removeTopCard()
+    private void drawCard(int i, Graphics2D g)
     {
-    	pile.remove(pile.size() - 1);
+    	if(i == size - 1)
+    	{
+    		if(i < numBacks)
+    			Card.drawBack(g, x, cardYs[i]);
+    		else
+    			Card.of(cards[i]).draw(g, x, cardYs[i]);
+    		return;
+    	}
+    	int height = Math.min(CARD_HEIGHT, cardYs[i + 1] - cardYs[i] + ARC);
+    	if(i < numBacks)
+    		Card.drawBackTop(g, x, cardYs[i], height);
+    	else
+    		Card.of(cards[i]).drawTop(g, x, cardYs[i], height);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+/**
+ * FrameLoop.java
+ * Shows an animation by drawing it straight to the screen, instead of asking
+ * Swing to repaint it. A thread of its own moves the animation to where it
+ * should be at the time of each frame, draws it to the back buffer of a
+ * BufferStrategy and flips it onto the screen, once every refresh of the display.
+ * Since the animation is moved by the time that passed and not by the frames
+ * drawn, it runs at the same speed however fast the computer is.
+ * The thread only runs while there is something to show, and ends with the animation.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+import java.awt.Canvas;
+import java.awt.Dimension;
+import java.awt.DisplayMode;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.SwingUtilities;
+
+public class FrameLoop extends Canvas
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	/*Frames per second when the refresh rate of the display is not known*/
+	private static final int DEFAULT_RATE = 60;
+	/*Buffers the frames are drawn in, one shown and one being drawn*/
+	private static final int BUFFERS = 2;
+
+	private final Scene scene;
+	/*Called on the Swing thread once the scene is over*/
+	private final Runnable finished;
+
+	/**
+	 * Something shown by the loop. Both methods are called on the thread of the loop.
+	 */
+	public interface Scene
+	{
+		/**
+		 * Moves everything to where it is a time after the loop started
+		 * @param elapsedNanos the nanoseconds since the loop started
+		 * @return whether or not there is more to show after this frame
+		 */
+		boolean advance(long elapsedNanos);
+
+		/**
+		 * Draws everything where it was last moved to
+		 * @param g the graphics component to draw with
+		 */
+		void render(Graphics2D g);
+	}
+
+	/**
+	 * Creates the canvas the scene is drawn on. Nothing is drawn until it is started.
+	 * @param size the size of the canvas
+	 * @param scene what is shown
+	 * @param finished what is done, on the Swing thread, after the last frame is shown
+	 */
+	public FrameLoop(Dimension size, Scene scene, Runnable finished)
+	{
+		this.scene = scene;
+		this.finished = finished;
+		setPreferredSize(size);
+		setIgnoreRepaint(true);
+	}
+
+	/**
+	 * Starts showing the scene. The canvas must already be in a frame that is showing.
+	 * Called on the Swing thread.
+	 */
+	public void start()
+	{
+		createBufferStrategy(BUFFERS);
+		final BufferStrategy strategy = getBufferStrategy();
+		final long period = NANOS_PER_SECOND / refreshRate();
+		Thread thread = new Thread(() -> run(strategy, period), "FrameLoop");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Shows a frame every period until the scene is over. When a frame is late,
+	 * the frames that were missed are dropped instead of being shown quickly after it.
+	 * The Swing thread is told the scene is finished even if showing it fails.
+	 */
+	private void run(BufferStrategy strategy, long period)
+	{
+		try
+		{
+			long start = System.nanoTime();
+			long next = start;
+			boolean more = true;
+			while(more)
+			{
+				more = scene.advance(System.nanoTime() - start);
+				show(strategy);
+				next += period;
+				long wait = next - System.nanoTime();
+				if(wait > 0)
+					LockSupport.parkNanos(wait);
+				else
+					next = System.nanoTime();
+			}
+		}
+		finally
+		{
+			SwingUtilities.invokeLater(finished);
+		}
+	}
+
+	/**
+	 * Draws the scene to the back buffer and shows it, drawing it again
+	 * if the buffers were lost, such as when the display changes
+	 */
+	private void show(BufferStrategy strategy)
+	{
+		do
+		{
+			do
+			{
+				Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+				try
+				{
+					scene.render(g);
+				}
+				finally
+				{
+					g.dispose();
+				}
+			}
+			while(strategy.contentsRestored());
+			strategy.show();
+		}
+		while(strategy.contentsLost());
+		Toolkit.getDefaultToolkit().sync();
+	}
+
+	/**
+	 * @return the frames per second of the display the canvas is on
+	 */
+	private int refreshRate()
+	{
+		GraphicsConfiguration config = getGraphicsConfiguration();
+		if(config == null)
+			return DEFAULT_RATE;
+		int rate = config.getDevice().getDisplayMode().getRefreshRate();
+		return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_RATE : rate;
+	}
+}
@@ -2,18 +2,37 @@
  * GameComponent.java
  * The game component that handles all moves of the player and generates visuals
  * following the rules of spider solitaire in response. 
- * It can 
+ * The rules themselves are kept by the SpiderEngine, 
+ * which this component draws and passes the player's moves to.
  * @author Briana Zhang & Lucy Zheng
  * Teacher: Ishman
  * Date: 2018-05-18
  * Period: 3
  */
 
+import java.io.IOException;
 import java.util.*;
-import java.util.List;
 import java.awt.*;
 import java.awt.geom.*;
 import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import engine.Deals;
+import engine.Move;
+import engine.SpiderEngine;
+import engine.Timeline;
+import metrics.CompleteEvent;
+import metrics.DealEvent;
+import metrics.Metrics;
+import metrics.MoveEvent;
+import metrics.PaintEvent;
+import metrics.UndoEvent;
+import replay.Replay;
+import replay.ReplayWriter;
+import save.AutoSave;
+import save.SavedGame;
+import solver.Analyzer;
+import solver.DealPool;
+import solver.Solver;
 
 public class GameComponent extends JComponent
 {
@@ -25,223 +44,341 @@ public class GameComponent extends JComponent
 	private static final int HEIGHT = 800;
 	private static GradientPaint grad = new GradientPaint(0, 0, COL_1, WIDTH, HEIGHT, COL_2	, false);
 	
-	/*Number of stacks and cards per stack*/
-	private static final int NUM_STACKS = 10;
-	private static final int FIRST_STACKS = 4;
-	private static final int SIX_CARDS  = 6;
-	private static final int FIVE_CARDS = 5;
+	/*Number of stacks*/
+	private static final int NUM_STACKS = SpiderEngine.NUM_STACKS;
 	
 	/*Normal card width, heigth, and the spacing between face up cards*/
 	private static final int CARD_WIDTH = 100;
 	private static final int CARD_HEIGHT = 140;
-	private static final int CARD_SPACE = 30;
 	
 	/*Number of cards per suit, number of suits, and total number of cards*/
-	private static final int SUIT_CARDS = 13;
-	private static final int TOTAL_SUITS = 8;
-	private static final int TOTAL_CARDS = 104;
+	private static final int SUIT_CARDS = SpiderEngine.SUIT_CARDS;
+	private static final int TOTAL_SUITS = SpiderEngine.TOTAL_SUITS;
 	
-	/*Numbers corresponding to card type in the setUp of cards*/
-	private static final int SPADE_NUM = 0;
-	private static final int HEART_NUM = 1;
-	private static final int DIAMOND_NUM = 2;
-	private static final int CLUB_NUM = 3;
+	/*The rules and the cards of the game*/
+	private SpiderEngine engine;
+	/*Every line of play tried from the deal, which moves the engine*/
+	private Timeline timeline;
+	/*Records every game played, or null*/
+	private ReplayWriter recorder;
+	/*Keeps the game on disk in case the program is closed, or null*/
+	private AutoSave autoSave;
 	
-	/*Strings corresponding to the card's suit type*/
-	private static final String CLUB = "club";
-	private static final String SPADE = "spade";
-	private static final String HEART = "heart";
-	private static final String DIAMOND = "diamond";
+	/*Works out hints and whether the game can be won in the background, or null*/
+	private Analyzer analyzer;
+	/*Gives the winnable deals new games are started with, or null to start random deals*/
+	private DealPool dealPool;
+	/*The analysis of the current position, the hint it gives, and whether the hint is shown*/
+	private AnalysisListener analysis;
+	private int hint;
+	private boolean hintShown;
+	private static final Color HINT_COLOR = Color.cyan;
 	
 	/*All of the card stacks (10 of them)*/
 	private ArrayList<CardStack> stacks;
-	/*The stack to draw the rest of the 50 cards from*/
-	private ArrayList<Card> drawStack;
-	/*All of the cards*/
-	private ArrayList<Card> cards;
-	/*All the cards that have been removed from the playing field*/
-	private ArrayList<Card> cardsDone;
-	
-	/*Every action of the player to in case the player wants to redo their moves*/
-	private Deque<Action> actions;
+	/*The cached images the game is painted from: one for each stack, then the drawing stack and the finished cards*/
+	private Layers layers;
+	private static final int DECK_LAYER = NUM_STACKS;
+	private static final int DONE_LAYER = NUM_STACKS + 1;
+	/*Whether or not the top card of the stack to draw the rest of the 50 cards from is shown*/
+	private boolean drawShown;
+	/*All the cards that have been removed from the playing field, as numbered by the engine,
+	 * where each of them is drawn while animating, and the number of them*/
+	private int[] cardsDone;
+	private int[] doneX;
+	private int[] doneY;
+	private int doneSize;
 	
 	/*Whether or not a card was "registered"*/
 	private boolean registered;
 	
-	/*The last registered cards and lastStack cards were from*/
-	private ArrayList<Card> lastCards;
+	/*The index of the last registered card and lastStack it is from*/
+	private int lastIndex;
 	private int lastStack;
 	
-	/*The last stack that cards were added to*/
-	private int lastAddedTo;
-	
-	/*The y-coordinate of the king card of a stack that is to be removed*/
-	private int YofKing;
-	
 	/*The last registered coordinates*/
 	private int mouseX;
 	private int mouseY;
 	private int suits;
 	
+	/*The System.nanoTime() of the last click not yet painted, or 0*/
+	private long clickTime;
+	
+	/*The number of the deal, which makes the same cards every time*/
+	private long seed;
+	
 	/*Whether or not the game is to be animated*/
 	private boolean animate;
+	/*Whether or not the game was won when it was last updated*/
+	private boolean over;
 	
-	/*Spacing between each card in the animation*/
+	/*Spacing between each card in the animation, and the nanoseconds the cards take to move it*/
 	private static final int SPACING = 10;
+	private static final long STEP_NANOS = 100000000L;
 	
 	/*Amount of space the drawStack is from the edges of the component*/
 	private static final int SPACE  = 50;
-	/*Shape that represents the drawingStack*/
-	private static final Shape deckArea = new RoundRectangle2D.Double(WIDTH - CARD_WIDTH - SPACE, HEIGHT -
-			CARD_HEIGHT - SPACE, CARD_WIDTH, CARD_HEIGHT, 5, 5);
+	/*Area of the drawingStack*/
+	private static final Rectangle deckArea = new Rectangle(WIDTH - CARD_WIDTH - SPACE, HEIGHT -
+			CARD_HEIGHT - SPACE, CARD_WIDTH, CARD_HEIGHT);
+	/*Area that the last 13 finished cards are shown in*/
+	private static final Rectangle doneArea = new Rectangle(SPACE, HEIGHT - CARD_HEIGHT - SPACE, 
+			SPACE * (SUIT_CARDS - 1) + CARD_WIDTH, CARD_HEIGHT);
 
 	/**
 	 * Generates a GameComponent that is in charge of all the graphics.
+	 * The rules of the game are left to the SpiderEngine.
 	 * @param suits the number of suits a player wants in a game
 	 */
     public GameComponent(int suits)
+    {
+    	this(suits, Deals.randomSeed());
+    }
+
+	/**
+	 * Generates a GameComponent that plays a given deal.
+	 * @param suits the number of suits a player wants in a game
+	 * @param seed the number of the deal
+	 */
+    public GameComponent(int suits, long seed)
     {
     	this.suits = suits;
-    	actions = new LinkedList<>();
-    	drawStack = new ArrayList<>();
-    	cardsDone = new ArrayList<>();
+    	this.seed = seed;
+    	engine = new SpiderEngine();
+    	cardsDone = new int[SpiderEngine.TOTAL_CARDS];
+    	doneX = new int[SpiderEngine.TOTAL_CARDS];
+    	doneY = new int[SpiderEngine.TOTAL_CARDS];
     	background = new Rectangle2D.Double(0, 0, WIDTH, HEIGHT);
-    	lastCards = null;
     	
+    	stacks = new ArrayList<>();
+    	while (stacks.size() < NUM_STACKS)
+    		stacks.add(new CardStack(stacks.size(), engine));
+    	Rectangle[] areas = new Rectangle[NUM_STACKS + 2];
+    	for(int i = 0; i < NUM_STACKS; i++)
+    		areas[i] = new Rectangle(stacks.get(i).getStackX(), 0, CARD_WIDTH, HEIGHT);
+    	areas[DECK_LAYER] = deckArea;
+    	areas[DONE_LAYER] = doneArea;
+    	layers = new Layers(WIDTH, HEIGHT, grad, areas, this::repaint);
     	setUpCards();
     }
 
+	/**
+	 * Generates a GameComponent that goes on with a game saved by AutoSave,
+	 * with the moves before the snapshot and after it able to be undone.
+	 * @param saved the saved game
+	 */
+    public GameComponent(SavedGame saved)
+    {
+    	this(saved.getSuits(), saved.getSeed());
+    	for(int move : saved.getMoves())
+    		timeline.play(move);
+    	for(int event : saved.getEvents())
+    	{
+    		if(event == Replay.UNDO)
+    			timeline.back();
+    		else
+    			timeline.play(event);
+    	}
+    	update();
+    }
+
     /**
      * "Paints" the current situation of the game.
      * 	If it is animating, it only paints the animated done cards;
-     * 	Normally, it draws the cards of each CardStack, 
-     * 	the cards in the drawing stack,
-     * 	and the finished cards (although it only displays the last 13 cards added). 
+     * 	Normally, it copies the layers of each CardStack, 
+     * 	the drawing stack,
+     * 	and the finished cards (although it only displays the last 13 cards added),
+     * 	which were drawn when they last changed, then draws the hint and selection on top. 
+     * 	Only the parts that are inside the area being repainted are copied.
      * 	@param g the graphics component used to draw everything
      */
     @Override
     public void paintComponent(Graphics g)
     {
-    	Graphics2D gr = (Graphics2D) g;
-    	gr.setPaint(grad);
-    	gr.fill(background);
+    	long start = System.nanoTime();
+    	PaintEvent event = new PaintEvent();
+    	event.begin();
+    	int cards = paintGame((Graphics2D) g);
+    	Metrics.PAINT.recordSince(start);
+    	if(event.shouldCommit())
+    	{
+    		event.cards = cards;
+    		event.animating = animate;
+    		event.commit();
+    	}
+    	if(clickTime != 0)
+    	{
+    		Metrics.CLICK.recordSince(clickTime);
+    		clickTime = 0;
+    	}
+    }
+    
+    /**
+     * Paints the game, as described in paintComponent
+     * @param gr the graphics component used to draw everything
+     * @return the number of cards drawn on this thread instead of copied from the layers
+     */
+    private int paintGame(Graphics2D gr)
+    {
+    	Rectangle clip = gr.getClipBounds();
+    	if(clip == null)
+    		clip = background.getBounds();
     	
     	if(animate)
     	{
-    		for(Card card: cardsDone)
-    			card.draw(gr);
-    		return;
+    		layers.paintBackground(gr, clip);
+    		for(int i = 0; i < doneSize; i++)
+    			Card.of(cardsDone[i]).draw(gr, doneX[i], doneY[i]);
+    		return doneSize;
     	}
     	
-    	for (CardStack temp : stacks)
-    		temp.drawStack(gr);
+    	layers.paint(gr, clip);
     	
-    	for (Card card : drawStack)
-    		card.draw(gr);
-    	
-    	if(!cardsDone.isEmpty())
-    	{
-    		int index = cardsDone.size() - 1;
-        	for(int k = 0; k < SUIT_CARDS; k++)
-        	{
-        		Card card = cardsDone.get(index);
-        		card.changeCoord(SPACE * (k + 1), HEIGHT - CARD_HEIGHT - SPACE);
-        		card.draw(gr);
-        		index--;
-        	}
-    	}    	
+    	if(hintShown && hint >= 0)
+    		drawHint(gr);
     	
     	if(registered)
     		register(gr);
+    	return 0;
     }
     
     /**
-     * Sets up the original set-up of the cards according to the rules of spider solitaire
+     * Draws the top 13 finished cards, on a worker thread of the layers
+     * @param gr the graphics component used to draw the cards
+     * @param top the finished cards to draw, from the last one finished
      */
-    private void setUpCards()
+    private static void drawDone(Graphics2D gr, int[] top)
     {
-    	stacks = new ArrayList<>();
-    	cardsDone = new ArrayList<>();
-    	animate = false;
-    	while (stacks.size() < NUM_STACKS)
-    		stacks.add(new CardStack(stacks.size()));
-    	cards = new ArrayList<>();
-    	generateCards();
-    	fillStacks();
+    	for(int k = 0; k < top.length; k++)
+    		Card.of(top[k]).draw(gr, SPACE * (k + 1), HEIGHT - CARD_HEIGHT - SPACE);
     }
     
     /**
-     * Generates randomly all 104 cards used based off of 
-     * the number of suits a player wants and the rules of spider solitaire.
+     * Sets up the original set-up of the cards according to the rules of spider solitaire
      */
-    private void generateCards()
+    private void setUpCards()
     {
-    	//randomization of cards
-    	int K = TOTAL_SUITS / suits;
-    	for(int k = 0; k < K; k++)
+    	animate = false;
+    	registered = false;
+    	engine.deal(Deals.deal(seed, suits));
+    	timeline = new Timeline(engine);
+    	timeline.setListener(new Recording());
+    	if(recorder != null)
     	{
-    		for(int i = 0; i < suits; i++)
-        	{
-        		for(int j = 1; j <= 13; j++)
-        		{
-        			String suit = "";
-        			if(i == SPADE_NUM)
-        				suit = SPADE;
-        			else if(i == HEART_NUM)
-        				suit = HEART;
-        			else if(i == DIAMOND_NUM)
-        				suit = DIAMOND;
-        			else
-        				suit = CLUB;
-        			Card card = new Card(0, 0, suit, j, true);
-        			cards.add(card);
-        		}
-        	}
+    		try
+    		{
+    			recorder.startGame(seed, suits);
+    		}
+    		catch(IOException e)
+    		{
+    			stopRecording(e);
+    		}
     	}
-    	Collections.shuffle(cards);
+    	saveSnapshot();
+    	update();
     }
     
     /**
-     * Fills all the stacks of the game with the generated cards 
-     * in accordance to the rules of spider solitaire.
-     * This means the first 4 stacks are each filled with 6 cards 
-     * with only the top card face up,
-     * and the last 6 stacks are each filled with 5 cards
-     * with only the top card face up.
+     * Lays out every CardStack and the finished cards as they are in the engine.
+     * Only the areas of the stacks, the drawing stack and the finished cards
+     * that changed are drawn again, on their layers. Fires the "over" property
+     * when the game is won, or is no longer won after an undo. Called after every
+     * change made to the engine, including moves played through getTimeline().
      */
-    private void fillStacks()
+    void update()
     {
-    	int index = 0;
-    	for(int i = 0; i < FIRST_STACKS; i++)
+    	for (int i = 0; i < NUM_STACKS; i++)
     	{
     		CardStack stack = stacks.get(i);
-    		for(int j = 1; j <= SIX_CARDS; j++)
-    		{
-    			Card card = cards.get(index);
-    			if(j == SIX_CARDS)
-    				card.setBack(false);
-    			stack.add(card, false);
-    			index++;
-    		}
+    		if(stack.update())
+    			layers.change(i, stack.getBounds(), stack.copy()::drawStack);
     	}
-    	for(int i = FIRST_STACKS; i < stacks.size(); i++)
+    	if(drawShown != engine.drawSize() > 0)
     	{
-    		CardStack stack = stacks.get(i);
-    		for(int j = 1; j <= FIVE_CARDS; j++)
-    		{
-    			Card card = cards.get(index);
-    			if(j == FIVE_CARDS)
-    				card.setBack(false);
-    			stack.add(card, false);
-    			index++;
-    		}
+    		drawShown = !drawShown;
+    		layers.change(DECK_LAYER, drawShown ? deckArea : new Rectangle(),
+    				gr -> Card.drawBack(gr, deckArea.x, deckArea.y));
+    	}
+    	int count = engine.doneCount() * SUIT_CARDS;
+    	boolean doneChanged = doneSize != count;
+    	if(doneSize > count)
+    		doneSize = count;
+    	while(doneSize < count)
+    	{
+    		int suit = engine.doneSuit(doneSize / SUIT_CARDS);
+    		cardsDone[doneSize] = SpiderEngine.card(suit, SUIT_CARDS - doneSize % SUIT_CARDS);
+    		doneSize++;
+    	}
+    	if(doneChanged)
+    	{
+    		int[] top = new int[doneSize > 0 ? SUIT_CARDS : 0];
+    		for(int k = 0; k < top.length; k++)
+    			top[k] = cardsDone[doneSize - 1 - k];
+    		layers.change(DONE_LAYER, doneArea, gr -> drawDone(gr, top));
     	}
-    	while(index < cards.size())
+    	layers.flush();
+    	analyze();
+    	if(over != engine.isOver())
+    	{
+    		over = !over;
+    		if(over)
+    			flushRecording();
+    		firePropertyChange("over", !over, over);
+    	}
+    }
+    
+    /**
+     * Works out hints and whether the game can be won in the background
+     * from now on, reporting them as the "analysis" property of this component
+     * @param analyzer the analyzer to use, or null to stop analyzing
+     */
+    public void setAnalyzer(Analyzer analyzer)
+    {
+    	this.analyzer = analyzer;
+    	analyze();
+    }
+    
+    /**
+     * Starts analyzing the position, dropping the hint of the last position
+     */
+    private void analyze()
+    {
+    	if(hintShown)
+    		repaint();
+    	hint = -1;
+    	hintShown = false;
+    	analysis = null;
+    	if(analyzer == null)
+    		return;
+    	analysis = new AnalysisListener();
+    	firePropertyChange("analysis", null, "Thinking...");
+    	analyzer.analyze(engine, analysis);
+    }
+    
+    /**
+     * Shows the move the analysis thinks is best. If there is no hint yet,
+     * it is shown as soon as there is one.
+     */
+    public void showHint()
+    {
+    	hintShown = true;
+    	repaint();
+    }
+    
+    /**
+     * Highlights the cards of the hint and where they go, or the drawing stack
+     * @param gr the graphics component used to paint the highlight
+     */
+    private void drawHint(Graphics2D gr)
+    {
+    	if(Move.type(hint) == Move.DEAL)
     	{
-    		cards.get(index).changeCoord(WIDTH - CARD_WIDTH - SPACE, HEIGHT - CARD_HEIGHT - SPACE);
-    		drawStack.add(cards.get(index));
-    		index++;
+    		gr.setColor(HINT_COLOR);
+    		gr.draw(deckArea);
+    		return;
     	}
+    	stacks.get(Move.from(hint)).drawHint(Move.count(hint), HINT_COLOR, gr);
+    	stacks.get(Move.to(hint)).drawHint(1, HINT_COLOR, gr);
     }
     
     /**
@@ -256,6 +393,7 @@ public class GameComponent extends JComponent
      */
     public void mouseClicked(int x, int y)
     {
+    	clickTime = System.nanoTime();
     	if(registered)
     		secondMouseClick(x);
     	else
@@ -263,28 +401,72 @@ public class GameComponent extends JComponent
     		registered = true;
     		this.mouseX = x;
     		this.mouseY = y;
-    		repaint();
+    		repaint(stacks.get(stackAt(x)).getBounds());
     	}
     }
     
     /**
-     * Registers the "second" mouse click. Checks to see if the lastCards registered
+     * Registers the "second" mouse click. Checks to see if the cards registered
      * can be moved onto the newly clicked card. If moveable according to the rules of solitaire,
-     * the cards are moved. Otherwise, the lastCards are unregistered.
+     * the cards are moved. Otherwise, the cards are unregistered.
      * @param x the x-coordinate clicked on
      */
     private void secondMouseClick(int x)
     {
 		registered = false;
-		int i = 0;
-		while(x > (i + 1) * CARD_WIDTH)
-			i++;
-		CardStack newStack = stacks.get(i);
-		if(newStack.allowMovementOnto(lastCards.get(0)))
-			moveCardOnto(i);
-    	if (checkIfRemoveCards())
-    		removeCards();
-    	repaint();
+		int i = stackAt(x);
+		int move = Move.run(lastStack, i, engine.size(lastStack) - lastIndex);
+		repaint(stacks.get(lastStack).getBounds());
+		long start = System.nanoTime();
+		MoveEvent event = new MoveEvent();
+		event.begin();
+		if(engine.isLegal(move))
+		{
+			int backs = engine.backs(lastStack);
+			playerMove(move);
+			Metrics.RULES.recordSince(start);
+			if(event.shouldCommit())
+			{
+				event.from = lastStack;
+				event.to = i;
+				event.count = Move.count(move);
+				event.flipped = engine.backs(lastStack) < backs;
+				event.commit();
+			}
+			update();
+		}
+		else
+			Metrics.RULES.recordSince(start);
+    }
+    
+    /**
+     * Makes a move or deal of the player, counting it in the metrics along with
+     * any King to Ace runs it removes. A CompleteEvent is timed over the move
+     * and committed when runs were removed, so moves replayed by the timeline,
+     * such as by redo or from a saved game, are not counted again.
+     * @param move the encoded move, which must be legal
+     */
+    private void playerMove(int move)
+    {
+    	int before = engine.doneCount();
+    	CompleteEvent complete = new CompleteEvent();
+    	complete.begin();
+    	timeline.play(move);
+    	if(Move.type(move) == Move.DEAL)
+    		Metrics.dealt();
+    	else
+    		Metrics.moved();
+    	int count = engine.doneCount();
+    	if(count == before)
+    		return;
+    	Metrics.completed(count - before);
+    	if(complete.shouldCommit())
+    	{
+    		complete.suit = engine.doneSuit(count - 1);
+    		complete.runs = count - before;
+    		complete.completed = count;
+    		complete.commit();
+    	}
     }
     
     /**
@@ -295,74 +477,55 @@ public class GameComponent extends JComponent
      */
     private void register(Graphics2D gr)
     {
-		int i = 0;
-		while(mouseX > (i + 1) * CARD_WIDTH)
-			i++;
+		int i = stackAt(mouseX);
 		CardStack stack = stacks.get(i);
 		lastStack = i;
 		if(stack.canMoveFrom(mouseY, gr))
-			lastCards = stack.getFromY(mouseY);
+			lastIndex = stack.getIndex(mouseY);
 		else
 			registered = false;
     }
     
     /**
-     * "Unregisters" the lastCards clicked so that cards must be re-registered
+     * @param x the x-coordinate on the screen
+     * @return the index of the CardStack at that x-coordinate
      */
-    public void unregister()
+    private int stackAt(int x)
     {
-    	registered = false;
+		if(x <= 0)
+			return 0;
+		return Math.min((x - 1) / CARD_WIDTH, NUM_STACKS - 1);
     }
     
     /**
-     * "Moves" the lastCards registered into the newly clicked card.
-     * Registers each old coordinate just in case user wants to "undo" their last action.
-     * @param i the index of the stack that the lastCards are being moved onto
+     * "Unregisters" the lastCards clicked so that cards must be re-registered
      */
-    private void moveCardOnto(int i)
-    {    	
-    	CardStack oldStack = stacks.get(lastStack);
-    	CardStack newStack = stacks.get(i);
-		oldStack.remove(mouseY);
-		List<Integer> oldYs = new ArrayList<>();
-		for(int k = 0; k < lastCards.size(); k++)
-			oldYs.add(lastCards.get(k).getY());
-		Action action = new Action(lastCards, lastCards.get(0).getX(), oldYs, lastStack, i, oldStack.ifTopFlipped());
-		actions.push(action);
-		newStack.add(lastCards);
-		lastAddedTo = i;
+    public void unregister()
+    {
+    	if(registered)
+    		repaint(stacks.get(stackAt(mouseX)).getBounds());
+    	registered = false;
     }
     
     /**
      * Removes 10 cards from the drawStack to place onto the CardStacks.
-     * Each card's old position is stored into an action in case the player wants to undo.
-     * Then, it checks if cards can be removed from the board aka having 13 cards from
-     * King to Ace of the same suit.
+     * The engine then removes any 13 cards from King to Ace of the same suit.
      */
     public void clickDeck()
     {
-    	if(drawStack.isEmpty())
+    	if(engine.drawSize() == 0)
     		return;
-    	ArrayList<Card> removed = new ArrayList<>();
-    	for (int k = 0; k < stacks.size(); k++)
+    	clickTime = System.nanoTime();
+    	DealEvent event = new DealEvent();
+    	event.begin();
+    	playerMove(Move.DRAW);
+    	update();
+    	Metrics.DEAL.recordSince(clickTime);
+    	if(event.shouldCommit())
     	{
-    		CardStack stack = stacks.get(k);
-    		Card added = drawStack.remove(drawStack.size() - 1);
-    		added.flip();
-    		removed.add(added);
-    		ArrayList<Card> card = new ArrayList<>();
-    		card.add(added);
-    		stack.add(card);
+    		event.left = engine.drawSize();
+    		event.commit();
     	}
-    	Action action = new Action(removed);
-    	actions.push(action);
-    	for(int i = 0; i < NUM_STACKS; i++)
-    	{
-    		lastAddedTo = i;
-    		if(checkIfRemoveCards())
-    			removeCards();
-    	}
-    	repaint();
     }
     
     /**
@@ -374,175 +537,186 @@ public class GameComponent extends JComponent
      */
     public boolean hasDrawCard(int mouseX, int mouseY)
     {
-    	if (deckArea.contains(mouseX, mouseY) && !drawStack.isEmpty())
+    	if (deckArea.contains(mouseX, mouseY) && engine.drawSize() > 0)
     		return true;
     	return false;
     }
-
+    
+    /**
+     * @return if any of the CardStacks are empty because in the rules of spider solitaire,
+     * one cannot draw cards from the drawStack if one of the 10 CardStacks is empty
+     */
+    public boolean anyStackEmpty()
+    {
+    	return engine.anyStackEmpty();
+    }
+    
     /**
-     * Looks at the CardStack that had cards last added to in order to check
-     * if there exists face up cards from king to Ace in decreasing order
-     * @return whether or not cards should be removed from a stack and onto cardsDone
+     * @return whether or not all the cards have been removed
      */
-    public boolean checkIfRemoveCards()
+    public boolean isOver()
     {
-    	CardStack lastAdded = stacks.get(lastAddedTo);
-    	ArrayList<Card> pile = lastAdded.getPile();
-    	if(pile.isEmpty())
-    		return false;
-    	Card card = pile.get(pile.size() - 1);
-    	int index = lastAdded.size() - 1;
-    	String suit = card.getSuit();
-    	for(int k = 1; k < SUIT_CARDS; k++)
+    	return engine.isOver();
+    }
+    
+    /**
+     * @return the engine holding the rules and cards of the game
+     */
+    public SpiderEngine getEngine()
+    {
+    	return engine;
+    }
+    
+    /**
+     * Records this game and every game after it, as it is played
+     * @param recorder the file to record the games to, or null to stop recording
+     */
+    public void setRecorder(ReplayWriter recorder)
+    {
+    	this.recorder = recorder;
+    	if(recorder == null)
+    		return;
+    	try
     	{
-    		index--;
-    		Card nextCard = null;
-    		if(index >= 0)
-    			nextCard = pile.get(index);
-    		if (nextCard == null && card.compareTo(nextCard) != -1 || nextCard.ifBack() || !suit.equals(nextCard.getSuit()))
-    			return false;
-    		card = nextCard;
+    		recorder.startGame(seed, suits);
+    		for(int move : timeline.getCurrent().getMoves())
+    			recorder.event(move);
+    	}
+    	catch(IOException e)
+    	{
+    		stopRecording(e);
     	}
-    	YofKing = card.getY() + CARD_SPACE/2;
-    	return true;
     }
     
     /**
-     * Removes cards so that they are out of play. This happens after 
-     * a player connects 13 cards of decreasing order of the same suit.
-     * The old position of the cards are recorded just in case the player
-     * wants to undo his or her last move.
+     * Keeps this game on disk from now on, and every game after it
+     * @param autoSave where to save the game, or null to stop saving
      */
-    public void removeCards()
+    public void setAutoSave(AutoSave autoSave)
     {
-    	CardStack temp = stacks.get(lastAddedTo);
-		ArrayList<Card> removed = temp.remove(YofKing);
-		List<Integer> oldYs = new ArrayList<>();
-		for (Card card : removed)
-		{
-			oldYs.add(card.getY());
-			cardsDone.add(card);
-		}
-		Action action = new Action(removed, temp.getStackX(), 
-				oldYs, lastAddedTo, -1, temp.ifTopFlipped());
-		actions.push(action);
+    	this.autoSave = autoSave;
+    	saveSnapshot();
     }
     
     /**
-     * @return if any of the CardStacks are empty because in the rules of spider solitaire,
-     * one cannot draw cards from the drawStack if one of the 10 CardStacks is empty
+     * Saves the whole line of play being played, if the game is being saved
      */
-    public boolean anyStackEmpty()
+    private void saveSnapshot()
     {
-    	for (CardStack temp : stacks)
+    	if(autoSave != null)
+    		autoSave.snapshot(seed, suits, timeline.getCurrent().getMoves(), engine.hash());
+    }
+    
+    /**
+     * Writes the moves recorded so far to the replay file, such as when the game is won
+     */
+    private void flushRecording()
+    {
+    	if(recorder == null)
+    		return;
+    	try
     	{
-    		if (temp.isEmpty())
-    			return true;
+    		recorder.flush();
+    	}
+    	catch(IOException e)
+    	{
+    		stopRecording(e);
     	}
-    	return false;
     }
     
     /**
-     * @return whether or not all the cards have been removed
+     * Stops recording after the recording could not be written, without stopping the game
+     * @param e the reason the recording could not be written
      */
-    public boolean isOver()
+    private void stopRecording(IOException e)
+    {
+    	System.err.println("Stopped recording games: " + e.getMessage());
+    	recorder = null;
+    }
+    
+    /**
+     * @return every line of play tried from the deal
+     */
+    public Timeline getTimeline()
+    {
+    	return timeline;
+    }
+    
+    /**
+     * @return the number of the deal being played
+     */
+    public long getSeed()
     {
-    	return cardsDone.size() == TOTAL_CARDS;
+    	return seed;
     }
     
     /**
-     *	Resets the original setUp of the cards and clears the previous actions
+     *	Resets the original setUp of the cards with a new deal and clears the previous actions.
+     *	The deal is taken from the pool of winnable deals if there is one.
      */
     public void reset()
     {
-    	setUpCards();
-    	actions = new LinkedList<>();
-    	repaint();
+    	reset(dealPool == null ? Deals.randomSeed() : dealPool.take(suits));
     }
     
     /**
-     * Undoes an action
+     * Starts every new game from now on with a deal taken from a pool of winnable deals
+     * @param dealPool the pool to take deals from, or null to start random deals
      */
-    public void undo()
+    public void setDealPool(DealPool dealPool)
     {
-    	if(actions.isEmpty())
-    		return;
-    	Action action = actions.pop();
-    	if(action.fromDrawStack())
-    		undoDrawStack(action);
-    	else if(action.completedStack())
-    		undoCompletedStack(action);
-    	else
-    		undoMovingStack(action);
+    	this.dealPool = dealPool;
+    }
+    
+    /**
+     *	Resets the original setUp of the cards with the given deal and clears the previous actions
+     *	@param seed the number of the deal
+     */
+    public void reset(long seed)
+    {
+    	this.seed = seed;
+    	setUpCards();
     	repaint();
     }
     
     /**
-     * Undoes a previous action of drawing from the stack.
-     * Removes every card added to the CardStacks by the last action
-     * and places them back onto the drawing stack
-     * @param the previous action that had drawn from the stack.
+     * Undoes an action
      */
-    private void undoDrawStack(Action action)
+    public void undo()
     {
-    	ArrayList<Card> cards = action.getCards();
-    	for(int i = cards.size() - 1; i >= 0; i--)
+    	long start = System.nanoTime();
+    	UndoEvent event = new UndoEvent();
+    	event.begin();
+    	if(timeline.back())
     	{
-    		Card card = cards.get(i);
-    		card.changeCoord(WIDTH - CARD_WIDTH - SPACE, HEIGHT -
-    				CARD_HEIGHT - SPACE);
-    		card.flip();
-			drawStack.add(card);
-			CardStack stack = stacks.get(i);
-			stack.removeTopCard();  			
+    		Metrics.undone();
+    		update();
+    		Metrics.UNDO.recordSince(start);
+    		if(event.shouldCommit())
+    		{
+    			event.left = timeline.getCurrent().getDepth();
+    			event.commit();
+    		}
     	}
     }
     
     /**
-     * Removes the cards from the cardsDone
-     * and places them back in their original positions.
-     * Then calls on undo again in order to return to
-     * the previous state from the player's viewpoint. 
-     * @param action the previous action that had removed the "completed" cards to cardsDone
+     * Redoes the last action that was undone
      */
-    private void undoCompletedStack(Action action)
+    public void redo()
     {
-    	ArrayList<Card> cards = action.getCards();
-    	List<Integer> oldYs = action.getOldYs();
-    	int oldX = action.getOldX();
-    	CardStack oldStack = stacks.get(action.oldStack());
-    	if(action.ifCardBelowFlipped())
-			oldStack.flipTopBack();
-    	for(int i = 0; i < cards.size(); i++)
-		{
-			Card card = cards.get(i);
-			card.changeCoord(oldX, oldYs.get(i));
-			oldStack.add(card, true);
-			cardsDone.remove(cardsDone.size() - 1);
-		}
-    	undo();
+    	if(timeline.forward())
+    		update();
     }
     
     /**
-     * Removes the last cards added to a CardStack and places them back to their original oldStack
-     * @param action the previous action that moved a stack of cards onto another CardStack
+     * Switches to another line of play tried from an earlier position,
+     * which is kept whenever a different move is made after undoing
      */
-    private void undoMovingStack(Action action)
+    public void otherLine()
     {
-    	ArrayList<Card> cards = action.getCards();
-    	List<Integer> oldYs = action.getOldYs();
-    	int oldX = action.getOldX();
-    	CardStack oldStack = stacks.get(action.oldStack());
-		CardStack newStack = stacks.get(action.newStack());
-		if(action.ifCardBelowFlipped())
-			oldStack.flipTopBack();
-		for(int i = 0; i < cards.size(); i++)
-		{
-			Card card = cards.get(i);
-			card.changeCoord(oldX, oldYs.get(i));
-			oldStack.add(card, true);
-			newStack.removeTopCard();
-		}
+    	if(timeline.nextLine())
+    		update();
     }
     
     /**
@@ -551,6 +725,49 @@ public class GameComponent extends JComponent
     public void setUpAnimation()
     {
     	animate = true;
+    	moveCards(0);
+    }
+    
+    /**
+     * Moves the cards to where they are a time after the animation started
+     * @param elapsedNanos the nanoseconds since the animation started
+     */
+    public void moveCards(long elapsedNanos)
+    {
+    	placeCards(doneX, doneY, elapsedNanos);
+    	repaint();
+    }
+    
+    /**
+     * Checks if any of the cards' coordinates exceed the component's height and width
+     * @return whether or not the animation ends
+     */
+    public boolean animationOver()
+    {
+    	return anyCardOut(doneX, doneY);
+    }
+    
+    /**
+     * Copies the finished cards into an animation that can be shown on another thread,
+     * such as by a FrameLoop, while the game is left alone
+     * @return the animation of the finished cards, from its start
+     */
+    public WinAnimation winAnimation()
+    {
+    	return new WinAnimation(Arrays.copyOf(cardsDone, doneSize));
+    }
+    
+    /**
+     * Moves the cards with spacing in different directions, to where they are
+     * a time after the animation started. They move SPACING every STEP_NANOS
+     * however often this is called.
+     * @param x the x-coordinates of the cards, which are set
+     * @param y the y-coordinates of the cards, which are set
+     * @param elapsedNanos the nanoseconds since the animation started
+     */
+    private static void placeCards(int[] x, int[] y, long elapsedNanos)
+    {
+    	double steps = (double) elapsedNanos / STEP_NANOS;
     	int index = 0;
     	int newX = WIDTH/2 - CARD_WIDTH/2;
     	int newY = HEIGHT/2 - CARD_HEIGHT/2;
@@ -572,66 +789,81 @@ public class GameComponent extends JComponent
     			dY = SPACING;
     		for(int j = 0; j < SUIT_CARDS; j++)
     		{
-    			Card card = cardsDone.get(index);
-    			card.changeCoord(newX + dX*j, newY + dY*j);
+    			x[index] = newX + (int) Math.round(dX * (j + steps));
+    			y[index] = newY + (int) Math.round(dY * (j + steps));
     			index++;
     		}
     	}
-    	repaint();
     }
     
     /**
-     * Moves the cards with spacing in different directions
+     * @param x the x-coordinates of the cards
+     * @param y the y-coordinates of the cards
+     * @return whether or not any of the cards is partly outside of the component
      */
-    public void moveCards()
+    private static boolean anyCardOut(int[] x, int[] y)
     {
-    	int index = 0;
-    	int dX;
-    	int dY;
-    	for(int i = 0; i < TOTAL_SUITS; i++)
+    	for(int index = 0; index < TOTAL_SUITS * SUIT_CARDS; index++)
     	{
-    		if(i == 0 || i == 3 || i == 5)
-    			dX = 0 - SPACING;
-    		else if(i == 1 || i == 6)
-    			dX = 0;
-    		else
-    			dX = SPACING;
-    		if(i < 3)
-    			dY = 0 - SPACING;
-    		else if(i < 5)
-    			dY = 0;
-    		else
-    			dY = SPACING;
-    		for(int j = 0; j < SUIT_CARDS; j++)
-    		{
-    			Card card = cardsDone.get(index);
-    			card.move(dX, dY);
-    			index++;
-    		}
+    		if(x[index] < 0 || x[index] + CARD_WIDTH > WIDTH
+    				|| y[index] < 0 || y[index] + CARD_HEIGHT > HEIGHT)
+    			return true;
     	}
-    	repaint();
+    	return false;
     }
     
     /**
-     * Checks if any of the cards' coordinates exceed the component's height and width
-     * @return whether or not the animation ends
+     * The finished cards flying out from the middle when the game is won,
+     * drawn from a copy of them so it never touches the game it was made from
      */
-    public boolean animationOver()
+    public static class WinAnimation implements FrameLoop.Scene
     {
-    	int index = 0;
-    	for(int i = 0; i < TOTAL_SUITS; i++)
+    	private final int[] cards;
+    	private final int[] x;
+    	private final int[] y;
+    	/*The time the cards were last moved to*/
+    	private long elapsedNanos;
+    	
+    	private WinAnimation(int[] cards)
     	{
-    		for(int j = 0; j < SUIT_CARDS; j++)
-    		{
-    			Card card = cardsDone.get(index);
-    			if(card.getX() < 0 || card.getX() + CARD_WIDTH > WIDTH
-    					|| card.getY() < 0 || card.getY() + CARD_HEIGHT > HEIGHT)
-    				return true;
-    			index++;
-    		}
+    		this.cards = cards;
+    		x = new int[SpiderEngine.TOTAL_CARDS];
+    		y = new int[SpiderEngine.TOTAL_CARDS];
+    		placeCards(x, y, 0);
     	}
-    	return false;
-    }    
+    	
+    	/**
+    	 * Moves the cards to where they are a time after the animation started
+    	 */
+    	@Override
+    	public boolean advance(long elapsedNanos)
+    	{
+    		this.elapsedNanos = elapsedNanos;
+    		placeCards(x, y, elapsedNanos);
+    		return !anyCardOut(x, y);
+    	}
+    	
+    	/**
+    	 * Draws the background and the cards where they were moved to
+    	 */
+    	@Override
+    	public void render(Graphics2D g)
+    	{
+    		g.setPaint(grad);
+    		g.fillRect(0, 0, WIDTH, HEIGHT);
+    		for(int i = 0; i < cards.length; i++)
+    			Card.of(cards[i]).draw(g, x[i], y[i]);
+    	}
+    	
+    	/**
+    	 * @return the nanoseconds since the start the cards were last moved to,
+    	 * which can be read once the FrameLoop showing them is finished
+    	 */
+    	public long getElapsedNanos()
+    	{
+    		return elapsedNanos;
+    	}
+    }
     
     /**
      * Forces the game to always have the same width and height so resizing is not possible
@@ -642,4 +874,78 @@ public class GameComponent extends JComponent
     	return new Dimension(WIDTH, HEIGHT);
     }
 
-}
\ No newline at end of file
+    /**
+     * Hands the results of the analysis of one position to the Swing thread,
+     * where they are dropped if the position has changed since
+     */
+    private class AnalysisListener implements Analyzer.Listener
+    {
+    	@Override
+    	public void bestMove(int move)
+    	{
+    		SwingUtilities.invokeLater(() -> show(move, null));
+    	}
+    	
+    	@Override
+    	public void finished(Solver.Result result, int move)
+    	{
+    		SwingUtilities.invokeLater(() -> show(move, result));
+    	}
+    	
+    	private void show(int move, Solver.Result result)
+    	{
+    		if(analysis != this)
+    			return;
+    		hint = move;
+    		if(hintShown)
+    			repaint();
+    		String text = "Thinking...";
+    		if(result == Solver.Result.WINNABLE)
+    			text = "Winnable";
+    		else if(result == Solver.Result.UNWINNABLE)
+    			text = "Not winnable";
+    		else if(result == Solver.Result.UNKNOWN)
+    			text = "Not sure";
+    		firePropertyChange("analysis", null, text);
+    	}
+    }
+    
+    /**
+     * Writes every move made and undone in the timeline to the recorder
+     * and to the auto save
+     */
+    private class Recording implements Timeline.Listener
+    {
+    	@Override
+    	public void played(int move)
+    	{
+    		record(move);
+    	}
+    	
+    	@Override
+    	public void undone()
+    	{
+    		record(Replay.UNDO);
+    	}
+    	
+    	private void record(int event)
+    	{
+    		if(autoSave != null)
+    		{
+    			autoSave.event(event);
+    			if(autoSave.needsSnapshot())
+    				saveSnapshot();
+    		}
+    		if(recorder == null)
+    			return;
+    		try
+    		{
+    			recorder.event(event);
+    		}
+    		catch(IOException e)
+    		{
+    			stopRecording(e);
+    		}
+    	}
+    }
+}
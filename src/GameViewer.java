@@ -10,8 +10,20 @@
  */
 
 import java.awt.event.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import javax.swing.*;
-import javax.swing.Timer;
+import javax.management.JMException;
+import metrics.Metrics;
+import replay.ReplayWriter;
+import save.AutoSave;
+import save.SavedGame;
+import solver.Analyzer;
+import solver.DealPool;
 
 public class GameViewer
 {
@@ -25,16 +37,26 @@ public class GameViewer
 	private static JPanel panel;
 	private static JButton restart;
 	private static JButton undo;
+	private static JButton redo;
+	private static JButton line;
+	private static JButton deal;
+	private static JButton hint;
+	private static JLabel analysis;
 	
-	/*Timers for when a game has ended, animation starts and ends, 
-	 * and to make an option for players to play again to appear
-	 */
-	private static Timer gameEndedTimer;
-	private static Timer animationTimer;
-	private static Timer playAgainTimer;
+	/*Shows the animation in place of the game when a game is won, only while it plays*/
+	private static FrameLoop animation;
+	
+	/*File every game played is recorded to, and directory the game being played is saved in*/
+	private static final Path REPLAYS = Paths.get(System.getProperty("user.home"), ".spi_sol", "games.rpl");
+	private static final Path SAVE = Paths.get(System.getProperty("user.home"), ".spi_sol", "save");
+	/*File the winnable deals new games start with are kept in*/
+	private static final Path DEALS = Paths.get(System.getProperty("user.home"), ".spi_sol", "deals.pool");
 	
-	/*Delay of all the timers*/
-	private static final int DELAY = 100;
+	/*Most milliseconds spent looking for a win from each position*/
+	private static final long ANALYSIS_MILLIS = 2000;
+	
+	/*Seconds between reports of the metrics, set with -Dspi_sol.metrics=seconds, or 0 for none*/
+	private static final long METRICS_SECONDS = Long.getLong("spi_sol.metrics", 0);
 
 	/** 
 	 * Sets up the initial frame and GUI, adding all buttons and panels
@@ -47,42 +69,197 @@ public class GameViewer
     	frame.setLocation(0, 0);
     	frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-    	Object[] options = {"1 Suit", "2 Suit", "4 Suit"};
-    	Object selectedValue = JOptionPane.showInputDialog(frame, "Pick an option",
-    		"Number of Suits", JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
-
-    	while (selectedValue == null)
+    	SavedGame saved = loadSavedGame();
+    	if (saved != null && JOptionPane.showConfirmDialog(frame, "Continue the last game?", "",
+    			JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION)
+    		game = new GameComponent(saved);
+    	else
     	{
-    		frame.setVisible(false);
-    		frame.dispose();
-    		System.exit(0);
-    	}
+    		Object[] options = {"1 Suit", "2 Suit", "4 Suit"};
+    		Object selectedValue = JOptionPane.showInputDialog(frame, "Pick an option",
+    			"Number of Suits", JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
 
-    	int numSuits = Integer.parseInt(selectedValue.toString().charAt(0) + "");
+    		while (selectedValue == null)
+    		{
+    			frame.setVisible(false);
+    			frame.dispose();
+    			System.exit(0);
+    		}
+
+    		int numSuits = Integer.parseInt(selectedValue.toString().charAt(0) + "");
+    		game = new GameComponent(numSuits);
+    	}
 
     	panel = new JPanel();
 
     	restart = new JButton("Restart");
     	undo = new JButton("Undo");
+    	redo = new JButton("Redo");
+    	line = new JButton("Other Line");
+    	deal = new JButton("Deal #");
+    	hint = new JButton("Hint");
+    	analysis = new JLabel(" ");
 
     	restart.setLayout(null);
     	undo.setLayout(null);
+    	redo.setLayout(null);
+    	line.setLayout(null);
+    	deal.setLayout(null);
+    	hint.setLayout(null);
 
-    	game = new GameComponent(numSuits);
+    	startRecording();
+    	startSaving();
+    	startDealPool();
+    	startMetrics();
+    	game.addPropertyChangeListener("analysis", e -> analysis.setText(e.getNewValue().toString()));
+    	game.setAnalyzer(new Analyzer(ANALYSIS_MILLIS));
     	panel.add(game);
 		panel.validate();
     	restart.setEnabled(true);
     	undo.setEnabled(true);
+    	redo.setEnabled(true);
+    	line.setEnabled(true);
+    	deal.setEnabled(true);
+    	hint.setEnabled(true);
 
     	panel.add(restart);
     	panel.add(undo);
+    	panel.add(redo);
+    	panel.add(line);
+    	panel.add(deal);
+    	panel.add(hint);
+    	panel.add(analysis);
     	frame.add(panel);
+    	updateTitle();
 
     	frame.setResizable(false);
     	frame.setVisible(true);
 
 	}
 
+	/**
+	 * Records every game played to the replay file, and finishes the
+	 * recording of the last game when the program exits.
+	 * The moves are kept in the buffer of the writer and written when a game
+	 * is won or another one starts, so the Swing thread does not write to
+	 * the file after every move.
+	 * The game is played without recording if the file cannot be opened.
+	 */
+	private static void startRecording()
+	{
+		try
+		{
+			Files.createDirectories(REPLAYS.getParent());
+			final ReplayWriter recorder = new ReplayWriter(REPLAYS, false);
+			game.setRecorder(recorder);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try
+				{
+					recorder.close();
+				}
+				catch(IOException e)
+				{
+					System.err.println("Could not finish recording: " + e.getMessage());
+				}
+			}));
+		}
+		catch(IOException e)
+		{
+			System.err.println("Games will not be recorded: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the game saved when the program last closed, or null if there is
+	 * none or it was already won
+	 */
+	private static SavedGame loadSavedGame()
+	{
+		try
+		{
+			SavedGame saved = AutoSave.load(SAVE);
+			return saved == null || saved.isOver() ? null : saved;
+		}
+		catch(IOException e)
+		{
+			System.err.println("Could not load the saved game: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Keeps the game being played on disk, and writes what is left when the program exits.
+	 * The game is played without saving if the directory cannot be made.
+	 */
+	private static void startSaving()
+	{
+		try
+		{
+			final AutoSave autoSave = new AutoSave(SAVE);
+			game.setAutoSave(autoSave);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try
+				{
+					autoSave.close();
+				}
+				catch(IOException e)
+				{
+					System.err.println("Could not save the game: " + e.getMessage());
+				}
+			}));
+		}
+		catch(IOException e)
+		{
+			System.err.println("The game will not be saved: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Starts new games with winnable deals solved in the background,
+	 * and saves the deals not yet played when the program exits
+	 */
+	private static void startDealPool()
+	{
+		final DealPool pool = new DealPool(DEALS);
+		game.setDealPool(pool);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try
+			{
+				pool.close();
+			}
+			catch(IOException e)
+			{
+				System.err.println("Could not save the winnable deals: " + e.getMessage());
+			}
+		}));
+	}
+
+	/**
+	 * Shows the metrics of the game over JMX, and writes them to the
+	 * standard error every so often if asked to
+	 */
+	private static void startMetrics()
+	{
+		try
+		{
+			Metrics.register();
+		}
+		catch(JMException e)
+		{
+			System.err.println("Metrics will not be shown over JMX: " + e.getMessage());
+		}
+		if(METRICS_SECONDS > 0)
+			Metrics.startLogging(METRICS_SECONDS, System.err);
+	}
+
+	/**
+	 * Shows the number of the deal being played in the title of the frame
+	 */
+	private static void updateTitle()
+	{
+		frame.setTitle("Spider Solitaire - Deal #" + game.getSeed());
+	}
+
     public static void main(String[] args)
 	{
 		setup();
@@ -92,20 +269,38 @@ public class GameViewer
 		
 		ActionListener undoMove = new ButtonClick();
 		undo.addActionListener(undoMove);
+		
+		ActionListener redoMove = new RedoListener();
+		redo.addActionListener(redoMove);
+		
+		ActionListener switchLine = new LineListener();
+		line.addActionListener(switchLine);
+		
+		ActionListener pickDeal = new DealListener();
+		deal.addActionListener(pickDeal);
+		
+		ActionListener showHint = new HintListener();
+		hint.addActionListener(showHint);
 
 		MouseListener mouse = new MouseClick();
 		panel.addMouseListener(mouse);
 		
-		ActionListener gameOver = new GameOver();
-		gameEndedTimer = new Timer(DELAY, gameOver);
-		gameEndedTimer.start();
-		
-		ActionListener animate = new Animation();
-		animationTimer = new Timer(DELAY, animate);
-		
-		ActionListener playAgain = new PlayAgain();
-		playAgainTimer = new Timer(DELAY, playAgain);
+		PropertyChangeListener gameOver = new GameOver();
+		game.addPropertyChangeListener("over", gameOver);
+	}
 
+	/**
+	 * Lets the player use the buttons or not
+	 * @param enabled whether or not the buttons can be clicked
+	 */
+	private static void setButtonsEnabled(boolean enabled)
+	{
+		restart.setEnabled(enabled);
+		undo.setEnabled(enabled);
+		redo.setEnabled(enabled);
+		line.setEnabled(enabled);
+		deal.setEnabled(enabled);
+		hint.setEnabled(enabled);
 	}
     
     /**	
@@ -124,12 +319,41 @@ public class GameViewer
 			if (restart_button.equals(JOptionPane.YES_OPTION))
 			{
 				game.reset();
+				updateTitle();
 				frame.revalidate();
 				frame.repaint();
 			}
 		}
 	}
     
+    /**
+     * Starts the deal with the number the player enters when the deal button is clicked
+     */
+    static class DealListener implements ActionListener
+	{
+    	/**	
+    	 * Asks the player for the number of a deal and starts it if the number is valid
+       	 */
+	  	public void actionPerformed(ActionEvent e)
+		{
+			String number = JOptionPane.showInputDialog(frame, "Deal number:", game.getSeed());
+			if (number == null)
+				return;
+			try
+			{
+				long seed = Long.parseLong(number.trim().replace("#", ""));
+				if (seed < 0)
+					throw new NumberFormatException();
+				game.reset(seed);
+				updateTitle();
+			}
+			catch (NumberFormatException ex)
+			{
+				JOptionPane.showMessageDialog(frame, "Please enter a deal number of 0 or more");
+			}
+		}
+	}
+    
     /**
      * Undoes the last action done by the player
      */
@@ -142,69 +366,117 @@ public class GameViewer
 	 	public void actionPerformed(ActionEvent e)
 	 	{
 	 		game.undo();
-	 		frame.repaint();
 	 	}
 	}
     
     /**
-     * Keeps track of when the game is over, starting the action of animation
+     * Redoes the last action undone by the player
      */
-    static class GameOver implements ActionListener
-    {
-    	/**
-         * Keeps track of when the game is over, starting the action of animation
+    static class RedoListener implements ActionListener
+	{
+    	/**	
+    	 * Redo the last action undone by the player
          */
-    	@Override
-    	public void actionPerformed(ActionEvent e)
-    	{
-    		if(game.isOver())
-    		{
-    			animationTimer.start();
-    			game.setUpAnimation();
-    			gameEndedTimer.stop();
-    		}
-    	}
-    }
+	 	@Override
+	 	public void actionPerformed(ActionEvent e)
+	 	{
+	 		game.redo();
+	 	}
+	}
     
     /**
-     * Keeps track of when the game is over, starting the action of animation
+     * Switches to another line of play the player tried before undoing
      */
-    static class Animation implements ActionListener
+    static class LineListener implements ActionListener
+	{
+    	/**	
+    	 * Switch to the next line of play from the last position with more than one
+         */
+	 	@Override
+	 	public void actionPerformed(ActionEvent e)
+	 	{
+	 		game.otherLine();
+	 	}
+	}
+    
+    /**
+     * Shows the player a move to make
+     */
+    static class HintListener implements ActionListener
+	{
+    	/**	
+    	 * Highlight the cards of the best move found and where they go
+         */
+	 	@Override
+	 	public void actionPerformed(ActionEvent e)
+	 	{
+	 		game.showHint();
+	 	}
+	}
+    
+    /**
+     * Starts the animation when the game is won
+     */
+    static class GameOver implements PropertyChangeListener
     {
     	/**
-         * Keeps track of when the game is over, starting the action of animation
+         * Shows the animation in place of the game when the game is won.
+         * The buttons cannot be clicked until it is over, so the game is not changed under it.
          */
     	@Override
-    	public void actionPerformed(ActionEvent e)
+    	public void propertyChange(PropertyChangeEvent e)
     	{
-    		game.moveCards();
-    		if(game.animationOver())
-    		{
-    			playAgainTimer.start();
-    			animationTimer.stop();
-    		}
+    		if(!Boolean.TRUE.equals(e.getNewValue()))
+    			return;
+    		game.setUpAnimation();
+    		GameComponent.WinAnimation scene = game.winAnimation();
+    		animation = new FrameLoop(game.getPreferredSize(), scene, new PlayAgain(scene));
+    		setButtonsEnabled(false);
+    		panel.remove(game);
+    		panel.add(animation, 0);
+    		panel.validate();
+    		animation.start();
     	}
     }
     
     /**
      * Restarts the game if the player selects the yes option. Otherwise closes the frame.
      */
-    static class PlayAgain implements ActionListener
+    static class PlayAgain implements Runnable
     {
+    	/*The animation that was shown, where the game leaves the cards*/
+    	private final GameComponent.WinAnimation scene;
+    	
+    	/**
+    	 * @param scene the animation shown before asking
+    	 */
+    	PlayAgain(GameComponent.WinAnimation scene)
+    	{
+    		this.scene = scene;
+    	}
+    	
     	/**
-         * Restarts the game if the player selects the yes option. Otherwise closes the frame.
+         * Puts the game back in place of the animation, with the cards where the animation
+         * left them, then restarts the game if the player selects the yes option.
+         * Otherwise closes the frame.
          */
     	@Override
-    	public void actionPerformed(ActionEvent e)
+    	public void run()
     	{
+    		game.moveCards(scene.getElapsedNanos());
+    		panel.remove(animation);
+    		animation = null;
+    		panel.add(game, 0);
+    		panel.validate();
+    		setButtonsEnabled(true);
     		Object obj = JOptionPane.showConfirmDialog(null, "Play Again?", "",
 				JOptionPane.YES_NO_OPTION);
 			if (obj.equals(JOptionPane.YES_OPTION))
 			{
 				game.reset();
+				updateTitle();
 				frame.revalidate();
 				frame.repaint();
-				playAgainTimer.stop();
 			}
 			else
 			{
@@ -0,0 +1,327 @@
+/**
+ * Layers.java
+ * Draws the game as a stack of cached images: the background, then one layer
+ * for each CardStack, one for the drawing stack and one for the finished cards.
+ * A layer is drawn again only when what is on it changes, and the layers that
+ * changed together are drawn in parallel on worker threads. When all of them
+ * are done they are shown at once, so a move never shows one stack changed and
+ * the other not. Painting on the Swing thread is then only copying the layers,
+ * which takes as long however many cards are on the board.
+ * Only one frame is drawn at a time, so however fast the game changes there
+ * are never more images than two for each layer, the one shown and the one drawn.
+ * A layer is given what to draw as a painter that must only use things that no
+ * longer change, such as a copy of a CardStack.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+public class Layers
+{
+	/*Threads the layers of every game are drawn on*/
+	private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(), r -> {
+				Thread thread = new Thread(r, "Layers");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	/*Size of the whole game and what it is filled with*/
+	private final int width;
+	private final int height;
+	private final Paint backgroundPaint;
+	private BufferedImage background;
+
+	private final Layer[] layers;
+	/*Whether or not the layers of a frame are being drawn. Only one frame is drawn at a time,
+	 * and layers changed meanwhile are drawn together, as they were last changed, after it*/
+	private boolean rendering;
+	/*Called with each area that should be painted again once new layers are shown*/
+	private final Consumer<Rectangle> repaint;
+
+	/*Scale of the screen the layers were drawn for*/
+	private double scaleX;
+	private double scaleY;
+
+	/**
+	 * Creates the layers, which are all empty until they are first changed
+	 * @param width the width of the game
+	 * @param height the height of the game
+	 * @param backgroundPaint what the background is filled with
+	 * @param areas the area of the game each layer covers, from the bottom layer to the top
+	 * @param repaint is called on the Swing thread with the area to paint
+	 * again whenever new layers are shown
+	 */
+	public Layers(int width, int height, Paint backgroundPaint, Rectangle[] areas, Consumer<Rectangle> repaint)
+	{
+		this.width = width;
+		this.height = height;
+		this.backgroundPaint = backgroundPaint;
+		this.repaint = repaint;
+		layers = new Layer[areas.length];
+		for(int i = 0; i < areas.length; i++)
+			layers[i] = new Layer(areas[i]);
+		scaleX = 1;
+		scaleY = 1;
+	}
+
+	/**
+	 * Marks a layer as changed. It is drawn again on the next flush,
+	 * or after the frame being drawn if there is one.
+	 * @param layer the number of the layer
+	 * @param content the part of the layer that is drawn on, which is all that is copied
+	 * @param painter draws the layer, on a worker thread, in the coordinates of the game
+	 */
+	public synchronized void change(int layer, Rectangle content, Consumer<Graphics2D> painter)
+	{
+		Layer changed = layers[layer];
+		changed.content = content.intersection(changed.area);
+		changed.painter = painter;
+		changed.requested++;
+		changed.changed = true;
+	}
+
+	/**
+	 * Starts drawing every layer changed since the last flush on the worker threads.
+	 * They are shown, and their areas painted again, once all of them are done.
+	 * If a frame is still being drawn, nothing is started until it is shown.
+	 */
+	public synchronized void flush()
+	{
+		if(rendering)
+			return;
+		final List<Task> frame = new ArrayList<>();
+		for(Layer layer : layers)
+		{
+			if(layer.changed)
+			{
+				layer.changed = false;
+				frame.add(new Task(layer, scaleX, scaleY));
+			}
+		}
+		if(frame.isEmpty())
+			return;
+		rendering = true;
+		CompletableFuture<?>[] done = new CompletableFuture<?>[frame.size()];
+		for(int i = 0; i < done.length; i++)
+			done[i] = CompletableFuture.runAsync(frame.get(i)::render, WORKERS);
+		CompletableFuture.allOf(done).whenComplete((result, failure) ->
+				SwingUtilities.invokeLater(() -> finish(frame, failure)));
+	}
+
+	/**
+	 * Shows the layers of a frame that are newer than the ones shown,
+	 * then starts drawing the layers changed while it was drawn
+	 */
+	private synchronized void finish(List<Task> frame, Throwable failure)
+	{
+		rendering = false;
+		if(failure != null)
+			System.err.println("Could not draw the cards: " + failure.getCause());
+		else
+		{
+			for(Task task : frame)
+			{
+				Layer layer = task.layer;
+				if(task.version <= layer.version || task.scaleX != scaleX || task.scaleY != scaleY)
+					continue;
+				repaint.accept(layer.shown);
+				layer.spare = layer.image;
+				layer.image = task.image;
+				layer.version = task.version;
+				layer.shown = task.content;
+				repaint.accept(layer.shown);
+			}
+		}
+		flush();
+	}
+
+	/**
+	 * Copies the background and every layer onto the screen. A layer that has
+	 * never been drawn, or was drawn for a screen of another scale, is drawn
+	 * right away on the Swing thread.
+	 * @param g the graphics component to paint with
+	 * @param clip the area to paint
+	 */
+	public synchronized void paint(Graphics2D g, Rectangle clip)
+	{
+		paintBackground(g, clip);
+		for(Layer layer : layers)
+		{
+			if(layer.image == null && layer.painter != null)
+				drawNow(layer);
+			Rectangle part = layer.shown.intersection(clip);
+			if(layer.image == null || part.isEmpty())
+				continue;
+			copy(g, layer.image, layer.area, part);
+		}
+	}
+
+	/**
+	 * Copies only the background onto the screen
+	 * @param g the graphics component to paint with
+	 * @param clip the area to paint
+	 */
+	public synchronized void paintBackground(Graphics2D g, Rectangle clip)
+	{
+		AffineTransform tx = g.getTransform();
+		if(background == null || tx.getScaleX() != scaleX || tx.getScaleY() != scaleY)
+			rescale(tx.getScaleX(), tx.getScaleY());
+		copy(g, background, new Rectangle(0, 0, width, height), clip.intersection(new Rectangle(0, 0, width, height)));
+	}
+
+	/**
+	 * Draws the background and every layer again for a screen of another scale
+	 */
+	private void rescale(double newScaleX, double newScaleY)
+	{
+		scaleX = newScaleX;
+		scaleY = newScaleY;
+		background = new BufferedImage(pixels(width, scaleX), pixels(height, scaleY), BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = background.createGraphics();
+		g.scale(scaleX, scaleY);
+		g.setPaint(backgroundPaint);
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+		for(Layer layer : layers)
+		{
+			layer.spare = null;
+			if(layer.painter != null)
+				drawNow(layer);
+		}
+	}
+
+	/**
+	 * Draws a layer as it was last changed, on this thread, and shows it
+	 */
+	private void drawNow(Layer layer)
+	{
+		Task task = new Task(layer, scaleX, scaleY);
+		task.render();
+		layer.spare = null;
+		layer.image = task.image;
+		layer.version = task.version;
+		layer.shown = task.content;
+	}
+
+	/**
+	 * Copies part of the image of an area of the game onto the screen
+	 * @param g the graphics component to paint with
+	 * @param image the image of the area, at the scale of the screen
+	 * @param area the area of the game the image is of
+	 * @param part the part of the area to copy
+	 */
+	private void copy(Graphics2D g, BufferedImage image, Rectangle area, Rectangle part)
+	{
+		if(part.isEmpty())
+			return;
+		int left = part.x - area.x;
+		int top = part.y - area.y;
+		g.drawImage(image, part.x, part.y, part.x + part.width, part.y + part.height,
+				(int) Math.floor(left * scaleX), (int) Math.floor(top * scaleY),
+				(int) Math.ceil((left + part.width) * scaleX), (int) Math.ceil((top + part.height) * scaleY), null);
+	}
+
+	/**
+	 * @return the number of pixels of a length on a screen of a scale
+	 */
+	private static int pixels(int length, double scale)
+	{
+		return (int) Math.ceil(length * scale);
+	}
+
+	/**
+	 * One layer, which is only used while holding the lock of the Layers
+	 */
+	private static class Layer
+	{
+		/*The area of the game the layer covers*/
+		private final Rectangle area;
+		/*What the layer was last changed to, the part of it that is drawn on, and its version*/
+		private Consumer<Graphics2D> painter;
+		private Rectangle content;
+		private long requested;
+		/*Whether or not the layer changed since it was last started being drawn*/
+		private boolean changed;
+		/*The image shown, the part of it that is drawn on, and the version it is of*/
+		private BufferedImage image;
+		private Rectangle shown;
+		private long version;
+		/*An image that was shown before and can be drawn on again*/
+		private BufferedImage spare;
+
+		Layer(Rectangle area)
+		{
+			this.area = area;
+			content = new Rectangle();
+			shown = new Rectangle();
+		}
+	}
+
+	/**
+	 * Drawing one version of a layer. It is set up on the Swing thread and
+	 * then only touched by the worker thread that draws it until it is shown.
+	 */
+	private static class Task
+	{
+		private final Layer layer;
+		private final Rectangle area;
+		private final Consumer<Graphics2D> painter;
+		private final Rectangle content;
+		private final long version;
+		private final double scaleX;
+		private final double scaleY;
+		/*The spare image of the layer when the task was set up, and the image drawn on*/
+		private BufferedImage image;
+
+		/**
+		 * Takes the last change of the layer, and its spare image to draw on if it has one
+		 */
+		Task(Layer layer, double scaleX, double scaleY)
+		{
+			this.layer = layer;
+			area = layer.area;
+			painter = layer.painter;
+			content = layer.content;
+			version = layer.requested;
+			this.scaleX = scaleX;
+			this.scaleY = scaleY;
+			image = layer.spare;
+			layer.spare = null;
+		}
+
+		/**
+		 * Clears the image and draws the layer on it, making a new image
+		 * if the spare one is missing or of another size
+		 */
+		void render()
+		{
+			int w = pixels(area.width, scaleX);
+			int h = pixels(area.height, scaleY);
+			if(image == null || image.getWidth() != w || image.getHeight() != h)
+				image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+			Graphics2D g = image.createGraphics();
+			g.setComposite(AlphaComposite.Clear);
+			g.fillRect(0, 0, image.getWidth(), image.getHeight());
+			g.setComposite(AlphaComposite.SrcOver);
+			g.scale(scaleX, scaleY);
+			g.translate(-area.x, -area.y);
+			g.clip(content);
+			painter.accept(g);
+			g.dispose();
+		}
+	}
+}
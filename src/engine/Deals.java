@@ -0,0 +1,116 @@
+/**
+ * Deals.java
+ * Makes the 104 cards of a game from a 64-bit seed and a number of suits,
+ * so that any deal can be played again or shared as "deal #N".
+ * The cards are shuffled with Fisher-Yates, using a SplitMix64 generator
+ * kept in a local long, so making a deal creates no objects and can be
+ * done by many threads at once. Batch jobs can simply give each thread
+ * its own range of deal numbers.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package engine;
+
+import java.util.SplittableRandom;
+
+public final class Deals
+{
+	/*Constants of the SplitMix64 generator*/
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final long MIX_1 = 0xBF58476D1CE4E5B9L;
+	private static final long MIX_2 = 0x94D049BB133111EBL;
+
+	/*The unshuffled cards of a game of 1, 2 and 4 suits*/
+	private static final int[][] ORDERED = new int[5][];
+
+	/*Makes the seeds of new games*/
+	private static final SplittableRandom SEEDS = new SplittableRandom();
+
+	static
+	{
+		int[] suitCounts = {1, 2, 4};
+		for(int suits : suitCounts)
+		{
+			int[] cards = new int[SpiderEngine.TOTAL_CARDS];
+			int index = 0;
+			for(int k = 0; k < SpiderEngine.TOTAL_SUITS / suits; k++)
+			{
+				for(int i = 0; i < suits; i++)
+				{
+					for(int j = 1; j <= SpiderEngine.SUIT_CARDS; j++)
+						cards[index++] = SpiderEngine.card(i, j);
+				}
+			}
+			ORDERED[suits] = cards;
+		}
+	}
+
+	private Deals()
+	{
+	}
+
+	/**
+	 * @param suits the number of suits
+	 * @return whether or not a game can be played with that many suits
+	 */
+	public static boolean validSuits(int suits)
+	{
+		return suits == 1 || suits == 2 || suits == 4;
+	}
+
+	/**
+	 * Writes the cards of a deal into the array, in the order they are dealt
+	 * @param seed the number of the deal
+	 * @param suits the number of suits (1, 2 or 4)
+	 * @param cards the array of at least 104 cards to write into
+	 */
+	public static void deal(long seed, int suits, int[] cards)
+	{
+		if(!validSuits(suits))
+			throw new IllegalArgumentException("suits must be 1, 2 or 4: " + suits);
+		System.arraycopy(ORDERED[suits], 0, cards, 0, SpiderEngine.TOTAL_CARDS);
+		long state = seed;
+		for(int i = SpiderEngine.TOTAL_CARDS - 1; i > 0; i--)
+		{
+			state += GOLDEN_GAMMA;
+			int j = (int) (((mix(state) >>> 32) * (i + 1)) >>> 32);
+			int temp = cards[i];
+			cards[i] = cards[j];
+			cards[j] = temp;
+		}
+	}
+
+	/**
+	 * @param seed the number of the deal
+	 * @param suits the number of suits (1, 2 or 4)
+	 * @return the cards of the deal, in the order they are dealt
+	 */
+	public static int[] deal(long seed, int suits)
+	{
+		int[] cards = new int[SpiderEngine.TOTAL_CARDS];
+		deal(seed, suits, cards);
+		return cards;
+	}
+
+	/**
+	 * @return the number of a new random deal, which is never negative
+	 */
+	public static long randomSeed()
+	{
+		synchronized(SEEDS)
+		{
+			return SEEDS.nextLong() & Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * The mixing step of SplitMix64
+	 */
+	private static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * MIX_1;
+		z = (z ^ (z >>> 27)) * MIX_2;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * Move.java
+ * Encodes the moves of spider solitaire as plain ints so that they can be
+ * stored and passed around without creating any objects.
+ * A run move keeps the stack it is taken from, the stack it is placed on
+ * and the number of cards moved. Drawing from the draw stack is its own move,
+ * and removing a finished King to Ace run is recorded by the engine as well.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package engine;
+
+public final class Move
+{
+	/*Types of moves, kept above the stack and count bits*/
+	public static final int RUN = 0;
+	public static final int DEAL = 1;
+	public static final int COMPLETE = 2;
+
+	/*Bit layout of a move*/
+	private static final int STACK_BITS = 4;
+	private static final int STACK_MASK = (1 << STACK_BITS) - 1;
+	private static final int COUNT_SHIFT = 2 * STACK_BITS;
+	private static final int COUNT_MASK = 0x7F;
+	private static final int TYPE_SHIFT = 16;
+	private static final int TYPE_MASK = 0x3;
+
+	/*The single move that draws ten cards from the draw stack*/
+	public static final int DRAW = DEAL << TYPE_SHIFT;
+
+	private Move()
+	{
+	}
+
+	/**
+	 * @param from the index of the stack the cards are taken from
+	 * @param to the index of the stack the cards are placed on
+	 * @param count the number of cards moved
+	 * @return the move of count cards from one stack onto another
+	 */
+	public static int run(int from, int to, int count)
+	{
+		return (RUN << TYPE_SHIFT) | (count << COUNT_SHIFT) | (to << STACK_BITS) | from;
+	}
+
+	/**
+	 * @param stack the index of the stack a finished run was removed from
+	 * @return the move that removes a finished run from the stack
+	 */
+	public static int complete(int stack)
+	{
+		return (COMPLETE << TYPE_SHIFT) | stack;
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return the type of the move (RUN, DEAL or COMPLETE)
+	 */
+	public static int type(int move)
+	{
+		return (move >>> TYPE_SHIFT) & TYPE_MASK;
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return the index of the stack the move takes cards from
+	 */
+	public static int from(int move)
+	{
+		return move & STACK_MASK;
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return the index of the stack the move places cards on
+	 */
+	public static int to(int move)
+	{
+		return (move >>> STACK_BITS) & STACK_MASK;
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return the number of cards the move takes
+	 */
+	public static int count(int move)
+	{
+		return (move >>> COUNT_SHIFT) & COUNT_MASK;
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return the String representation of the move
+	 */
+	public static String toString(int move)
+	{
+		switch(type(move))
+		{
+			case DEAL:
+				return "draw";
+			case COMPLETE:
+				return "complete " + from(move);
+			default:
+				return count(move) + " from " + from(move) + " to " + to(move);
+		}
+	}
+}
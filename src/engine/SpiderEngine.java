@@ -0,0 +1,808 @@
+/**
+ * SpiderEngine.java
+ * The rules of spider solitaire without any graphics.
+ * Holds the ten stacks, the draw stack and the finished runs as arrays of ints
+ * so a game can be played, undone and searched without AWT or Swing.
+ * A card is stored as suit * 13 + (number - 1), and the face down cards of a
+ * stack are always the first backs(stack) cards of that stack.
+ * The length of the run of face up cards of the same suit in decreasing order
+ * on top of every stack is kept up to date by every change to the stack,
+ * so checking what can be moved or removed never walks the stack.
+ * Every move is written to a journal of ints, one for each move of the player
+ * and one for each run removed by it, so moves can be undone and redone
+ * any number of times without creating objects.
+ * An engine is not thread safe, but can be copied for use on other threads.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package engine;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class SpiderEngine
+{
+	/*Number of stacks, cards per suit, runs per game and total number of cards*/
+	public static final int NUM_STACKS = 10;
+	public static final int SUIT_CARDS = 13;
+	public static final int TOTAL_SUITS = 8;
+	public static final int TOTAL_CARDS = 104;
+	/*Number of cards left in the draw stack after the first deal*/
+	public static final int DRAW_CARDS = 50;
+
+	/*Number of stacks dealt six cards, and the cards dealt to each stack*/
+	private static final int FIRST_STACKS = 4;
+	private static final int SIX_CARDS = 6;
+	private static final int FIVE_CARDS = 5;
+
+	/*Marks a journal entry whose move flipped a face down card*/
+	private static final int FLIP = 1 << 20;
+	/*Bytes used by save for the length of the journal and for each entry*/
+	private static final int JOURNAL_LENGTH_BYTES = 4;
+	private static final int JOURNAL_ENTRY_BYTES = 3;
+
+	/*The cards of each stack, from the bottom of the pile to the top*/
+	private final int[][] stacks;
+	private final int[] sizes;
+	private final int[] backs;
+	/*Number of cards in the run on top of each stack*/
+	private final int[] runs;
+
+	/*The draw stack, drawn from the end*/
+	private final int[] drawStack;
+	private int drawSize;
+
+	/*The suit of every finished run, in the order they were finished*/
+	private final int[] done;
+	private int doneCount;
+
+	/*Zobrist hash of the position, kept up to date by every move*/
+	private long hash;
+
+	/*Every move applied so far, in case the player wants to undo,
+	 *followed by the moves undone that can be redone*/
+	private int[] journal;
+	private int journalSize;
+	/*Number of moves of the player that can be undone and redone*/
+	private int moves;
+	private int redoMoves;
+
+	/**
+	 * Creates an engine with empty stacks. Call deal to start a game.
+	 */
+	public SpiderEngine()
+	{
+		stacks = new int[NUM_STACKS][TOTAL_CARDS];
+		sizes = new int[NUM_STACKS];
+		backs = new int[NUM_STACKS];
+		runs = new int[NUM_STACKS];
+		drawStack = new int[DRAW_CARDS];
+		done = new int[TOTAL_SUITS];
+		journal = new int[64];
+	}
+
+	/**
+	 * Creates a copy of another engine, including its history
+	 * @param other the engine to copy
+	 */
+	public SpiderEngine(SpiderEngine other)
+	{
+		this(other, true);
+	}
+
+	private SpiderEngine(SpiderEngine other, boolean history)
+	{
+		stacks = new int[NUM_STACKS][];
+		for(int i = 0; i < NUM_STACKS; i++)
+			stacks[i] = other.stacks[i].clone();
+		sizes = other.sizes.clone();
+		backs = other.backs.clone();
+		runs = other.runs.clone();
+		drawStack = other.drawStack.clone();
+		drawSize = other.drawSize;
+		done = other.done.clone();
+		doneCount = other.doneCount;
+		if(history)
+		{
+			journal = other.journal.clone();
+			journalSize = other.journalSize;
+			moves = other.moves;
+			redoMoves = other.redoMoves;
+		}
+		else
+			journal = new int[64];
+		hash = other.hash;
+	}
+
+	/**
+	 * Copies the position without its history, which is all a search needs,
+	 * so the cost does not grow with the length of the game
+	 * @return a new engine in the same position, with no moves to undo or redo
+	 */
+	public SpiderEngine fork()
+	{
+		return new SpiderEngine(this, false);
+	}
+
+	/**
+	 * @param suit the suit of the card from 0 to 3
+	 * @param num the number of the card from 1 to 13
+	 * @return the card with the given suit and number
+	 */
+	public static int card(int suit, int num)
+	{
+		return suit * SUIT_CARDS + num - 1;
+	}
+
+	/**
+	 * @param card the card
+	 * @return the suit of the card from 0 to 3
+	 */
+	public static int suit(int card)
+	{
+		return card / SUIT_CARDS;
+	}
+
+	/**
+	 * @param card the card
+	 * @return the number of the card from 1 to 13
+	 */
+	public static int num(int card)
+	{
+		return card % SUIT_CARDS + 1;
+	}
+
+	/**
+	 * Starts a new game with the given cards according to the rules of spider solitaire.
+	 * The first 4 stacks are each given 6 cards and the last 6 stacks 5 cards,
+	 * with only the top card face up. The other 50 cards make up the draw stack.
+	 * @param cards all 104 cards in the order they are dealt
+	 */
+	public void deal(int[] cards)
+	{
+		int index = 0;
+		for(int i = 0; i < NUM_STACKS; i++)
+		{
+			int count = i < FIRST_STACKS ? SIX_CARDS : FIVE_CARDS;
+			for(int j = 0; j < count; j++)
+				stacks[i][j] = cards[index++];
+			sizes[i] = count;
+			backs[i] = count - 1;
+			runs[i] = 1;
+		}
+		drawSize = 0;
+		while(index < TOTAL_CARDS)
+			drawStack[drawSize++] = cards[index++];
+		doneCount = 0;
+		journalSize = 0;
+		moves = 0;
+		redoMoves = 0;
+		rehash();
+	}
+
+	/**
+	 * Writes the position and the moves that can be undone into an array of bytes,
+	 * a little over a hundred bytes and three more for every move.
+	 * Each stack is its size, its number of face down cards and its cards,
+	 * followed by the draw stack, the suits of the finished runs
+	 * and the entries of the journal. Moves that could be redone are left out.
+	 * @return the saved engine, which load puts back
+	 */
+	public byte[] save()
+	{
+		ByteBuffer state = ByteBuffer.allocate(boardBytes() + JOURNAL_LENGTH_BYTES
+				+ JOURNAL_ENTRY_BYTES * journalSize);
+		putBoard(state);
+		state.putInt(journalSize);
+		for(int i = 0; i < journalSize; i++)
+		{
+			int entry = journal[i];
+			state.put((byte) (entry >>> 16)).put((byte) (entry >>> 8)).put((byte) entry);
+		}
+		return state.array();
+	}
+
+	/**
+	 * Writes only the position into an array of bytes, as save does but without
+	 * the journal, so its size does not grow with the length of the game
+	 * @return the saved position, which loadBoard puts back
+	 */
+	public byte[] saveBoard()
+	{
+		ByteBuffer state = ByteBuffer.allocate(boardBytes());
+		putBoard(state);
+		return state.array();
+	}
+
+	/**
+	 * Puts back an engine written by save, replacing the game being played
+	 * @param saved the bytes save returned
+	 */
+	public void load(byte[] saved)
+	{
+		try
+		{
+			ByteBuffer state = ByteBuffer.wrap(saved);
+			getBoard(state);
+			journalSize = state.getInt();
+			if(journal.length < journalSize)
+				journal = new int[journalSize];
+			moves = 0;
+			for(int i = 0; i < journalSize; i++)
+			{
+				journal[i] = (state.get() & 0xFF) << 16 | (state.get() & 0xFF) << 8 | (state.get() & 0xFF);
+				if(Move.type(journal[i]) != Move.COMPLETE)
+					moves++;
+			}
+		}
+		catch(BufferUnderflowException | IndexOutOfBoundsException e)
+		{
+			throw new IllegalArgumentException("not a saved engine", e);
+		}
+		redoMoves = 0;
+		for(int i = 0; i < NUM_STACKS; i++)
+			countRun(i);
+		rehash();
+	}
+
+	/**
+	 * Puts back a position written by saveBoard, replacing the game being played.
+	 * The engine has no moves to undo or redo afterwards.
+	 * @param saved the bytes saveBoard returned
+	 */
+	public void loadBoard(byte[] saved)
+	{
+		try
+		{
+			getBoard(ByteBuffer.wrap(saved));
+		}
+		catch(BufferUnderflowException | IndexOutOfBoundsException e)
+		{
+			throw new IllegalArgumentException("not a saved position", e);
+		}
+		journalSize = 0;
+		moves = 0;
+		redoMoves = 0;
+		for(int i = 0; i < NUM_STACKS; i++)
+			countRun(i);
+		rehash();
+	}
+
+	/**
+	 * @return the number of bytes putBoard writes
+	 */
+	private int boardBytes()
+	{
+		int length = 2 * NUM_STACKS + 1 + drawSize + 1 + doneCount;
+		for(int i = 0; i < NUM_STACKS; i++)
+			length += sizes[i];
+		return length;
+	}
+
+	/**
+	 * Writes the stacks, the draw stack and the finished runs
+	 */
+	private void putBoard(ByteBuffer state)
+	{
+		for(int i = 0; i < NUM_STACKS; i++)
+		{
+			state.put((byte) sizes[i]).put((byte) backs[i]);
+			for(int j = 0; j < sizes[i]; j++)
+				state.put((byte) stacks[i][j]);
+		}
+		state.put((byte) drawSize);
+		for(int i = 0; i < drawSize; i++)
+			state.put((byte) drawStack[i]);
+		state.put((byte) doneCount);
+		for(int i = 0; i < doneCount; i++)
+			state.put((byte) done[i]);
+	}
+
+	/**
+	 * Reads what putBoard wrote
+	 */
+	private void getBoard(ByteBuffer state)
+	{
+		for(int i = 0; i < NUM_STACKS; i++)
+		{
+			sizes[i] = state.get();
+			backs[i] = state.get();
+			for(int j = 0; j < sizes[i]; j++)
+				stacks[i][j] = state.get();
+		}
+		drawSize = state.get();
+		for(int i = 0; i < drawSize; i++)
+			drawStack[i] = state.get();
+		doneCount = state.get();
+		for(int i = 0; i < doneCount; i++)
+			done[i] = state.get();
+	}
+
+	/**
+	 * Works out the hash of the whole position
+	 */
+	private void rehash()
+	{
+		hash = Zobrist.draw(drawSize);
+		for(int i = 0; i < NUM_STACKS; i++)
+		{
+			hash ^= Zobrist.backs(i, backs[i]);
+			for(int j = 0; j < sizes[i]; j++)
+				hash ^= Zobrist.card(i, j, stacks[i][j]);
+		}
+	}
+
+	/**
+	 * @param stack the index of the stack
+	 * @return the number of cards in the stack
+	 */
+	public int size(int stack)
+	{
+		return sizes[stack];
+	}
+
+	/**
+	 * @param stack the index of the stack
+	 * @return the number of face down cards at the bottom of the stack
+	 */
+	public int backs(int stack)
+	{
+		return backs[stack];
+	}
+
+	/**
+	 * @param stack the index of the stack
+	 * @param index the index of the card from the bottom of the stack
+	 * @return the card at that index
+	 */
+	public int cardAt(int stack, int index)
+	{
+		return stacks[stack][index];
+	}
+
+	/**
+	 * @param stack the index of the stack
+	 * @return the number of face up cards of the same suit in decreasing order
+	 * on top of the stack, which are the cards that can be moved together
+	 */
+	public int runLength(int stack)
+	{
+		return runs[stack];
+	}
+
+	/**
+	 * @return the number of cards left in the draw stack
+	 */
+	public int drawSize()
+	{
+		return drawSize;
+	}
+
+	/**
+	 * @param index the index into the draw stack, where the last card is drawn first
+	 * @return the card at that index
+	 */
+	public int drawCardAt(int index)
+	{
+		return drawStack[index];
+	}
+
+	/**
+	 * @return the number of King to Ace runs that have been removed
+	 */
+	public int doneCount()
+	{
+		return doneCount;
+	}
+
+	/**
+	 * @param index the index of the finished run
+	 * @return the suit of that run
+	 */
+	public int doneSuit(int index)
+	{
+		return done[index];
+	}
+
+	/**
+	 * Positions reached by different moves have the same hash, and
+	 * different positions almost never do.
+	 * @return the hash of the position
+	 */
+	public long hash()
+	{
+		return hash;
+	}
+
+	/**
+	 * @return the number of moves that can be undone
+	 */
+	public int historySize()
+	{
+		return moves;
+	}
+
+	/**
+	 * @return the number of moves that were undone and can be redone
+	 */
+	public int redoSize()
+	{
+		return redoMoves;
+	}
+
+	/**
+	 * @return whether or not all the cards have been removed
+	 */
+	public boolean isOver()
+	{
+		return doneCount == TOTAL_SUITS;
+	}
+
+	/**
+	 * @return if any of the stacks are empty because in the rules of spider solitaire,
+	 * one cannot draw cards from the draw stack if one of the 10 stacks is empty
+	 */
+	public boolean anyStackEmpty()
+	{
+		for(int i = 0; i < NUM_STACKS; i++)
+		{
+			if(sizes[i] == 0)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return whether or not ten cards can be drawn from the draw stack
+	 */
+	public boolean canDraw()
+	{
+		return drawSize > 0 && !anyStackEmpty();
+	}
+
+	/**
+	 * Discerns whether the card at the index and the cards above it are face up
+	 * and in decreasing order of the same suit, so that they can be moved together.
+	 * @param stack the index of the stack
+	 * @param index the index of the lowest card to be moved
+	 * @return whether or not the cards can be moved
+	 */
+	public boolean canMoveFrom(int stack, int index)
+	{
+		int size = sizes[stack];
+		return index >= size - runs[stack] && index < size;
+	}
+
+	/**
+	 * Discerns whether or not a card can be placed on a stack,
+	 * which is when the stack is empty or its top card is one higher.
+	 * @param card the card to be placed
+	 * @param stack the index of the stack
+	 * @return whether or not the card can be placed on the stack
+	 */
+	public boolean allowMovementOnto(int card, int stack)
+	{
+		int size = sizes[stack];
+		return size == 0 || num(stacks[stack][size - 1]) == num(card) + 1;
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return whether or not the move can be made by the player
+	 */
+	public boolean isLegal(int move)
+	{
+		int type = Move.type(move);
+		if(type == Move.DEAL)
+			return canDraw();
+		if(type != Move.RUN)
+			return false;
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int count = Move.count(move);
+		if(from == to || from >= NUM_STACKS || to >= NUM_STACKS || count <= 0)
+			return false;
+		int index = sizes[from] - count;
+		return canMoveFrom(from, index) && allowMovementOnto(stacks[from][index], to);
+	}
+
+	/**
+	 * Writes every move the player could make into the buffer.
+	 * This is, for every stack, each part of its top run that can be placed
+	 * on each other stack, followed by drawing from the draw stack when it is allowed.
+	 * A stack that is not empty takes at most one part of a run, the one whose
+	 * lowest card is one lower than its top card, so that part is found
+	 * from the numbers of the cards instead of by trying every part.
+	 * Nothing is created, so this can be called as often as a search needs.
+	 * @param buffer the array to write the moves into, at least legalMovesBound() long
+	 * @return the number of moves written
+	 */
+	public int legalMoves(int[] buffer)
+	{
+		int n = 0;
+		for(int from = 0; from < NUM_STACKS; from++)
+		{
+			int run = runs[from];
+			if(run == 0)
+				continue;
+			int size = sizes[from];
+			int topNum = num(stacks[from][size - 1]);
+			for(int to = 0; to < NUM_STACKS; to++)
+			{
+				if(to == from)
+					continue;
+				if(sizes[to] == 0)
+				{
+					for(int count = 1; count <= run; count++)
+						buffer[n++] = Move.run(from, to, count);
+				}
+				else
+				{
+					int count = num(stacks[to][sizes[to] - 1]) - topNum;
+					if(count >= 1 && count <= run)
+						buffer[n++] = Move.run(from, to, count);
+				}
+			}
+		}
+		if(canDraw())
+			buffer[n++] = Move.DRAW;
+		return n;
+	}
+
+	/**
+	 * @return the most moves legalMoves can ever write
+	 */
+	public static int legalMovesBound()
+	{
+		return NUM_STACKS * SUIT_CARDS * (NUM_STACKS - 1) + 1;
+	}
+
+	/**
+	 * Makes a move that isLegal allows. Afterwards every stack the cards were
+	 * placed on is checked for a King to Ace run of the same suit, which is removed.
+	 * @param move the encoded move
+	 */
+	public void apply(int move)
+	{
+		play(move);
+		redoMoves = 0;
+	}
+
+	/**
+	 * Makes the move that was undone last again
+	 * @return whether or not there was a move to redo
+	 */
+	public boolean redo()
+	{
+		if(redoMoves == 0)
+			return false;
+		play(journal[journalSize] & ~FLIP);
+		redoMoves--;
+		return true;
+	}
+
+	/**
+	 * Makes a move and writes it and the runs it finished to the journal.
+	 * A move that is redone writes the same entries it wrote the first time.
+	 * @param move the encoded move
+	 */
+	private void play(int move)
+	{
+		moves++;
+		if(Move.type(move) == Move.DEAL)
+		{
+			for(int i = 0; i < NUM_STACKS; i++)
+				push(i, popDraw());
+			record(move);
+			for(int i = 0; i < NUM_STACKS; i++)
+				removeIfComplete(i);
+		}
+		else
+		{
+			int from = Move.from(move);
+			int to = Move.to(move);
+			int count = Move.count(move);
+			int start = sizes[from] - count;
+			for(int k = 0; k < count; k++)
+				push(to, stacks[from][start + k]);
+			truncate(from, start);
+			record(flipTop(from) ? move | FLIP : move);
+			removeIfComplete(to);
+		}
+	}
+
+	/**
+	 * Undoes the last move of the player. If that move finished any runs,
+	 * they are put back first.
+	 * @return whether or not there was a move to undo
+	 */
+	public boolean undo()
+	{
+		if(moves == 0)
+			return false;
+		moves--;
+		redoMoves++;
+		int entry = journal[--journalSize];
+		while(Move.type(entry) == Move.COMPLETE)
+		{
+			undoComplete(entry);
+			entry = journal[--journalSize];
+		}
+		if(Move.type(entry) == Move.DEAL)
+		{
+			for(int i = NUM_STACKS - 1; i >= 0; i--)
+			{
+				pushDraw(stacks[i][sizes[i] - 1]);
+				truncate(i, sizes[i] - 1);
+			}
+		}
+		else
+		{
+			int from = Move.from(entry);
+			int to = Move.to(entry);
+			int count = Move.count(entry);
+			if((entry & FLIP) != 0)
+				setBacks(from, backs[from] + 1);
+			int start = sizes[to] - count;
+			for(int k = 0; k < count; k++)
+				push(from, stacks[to][start + k]);
+			truncate(to, start);
+		}
+		return true;
+	}
+
+	/**
+	 * Undoes moves until only the given number of moves of the player are left
+	 * @param count the number of moves to keep
+	 * @return whether or not any move was undone
+	 */
+	public boolean undoTo(int count)
+	{
+		boolean undone = false;
+		while(moves > count && undo())
+			undone = true;
+		return undone;
+	}
+
+	/**
+	 * Checks the stack for face up cards from King to Ace of the same suit
+	 * on top of the stack
+	 * @param stack the index of the stack
+	 * @return whether or not a run should be removed from the stack
+	 */
+	public boolean isRunComplete(int stack)
+	{
+		return runs[stack] == SUIT_CARDS;
+	}
+
+	/**
+	 * Removes a finished run from the stack if there is one
+	 * @param stack the index of the stack
+	 */
+	private void removeIfComplete(int stack)
+	{
+		if(!isRunComplete(stack))
+			return;
+		truncate(stack, sizes[stack] - SUIT_CARDS);
+		done[doneCount++] = suit(stacks[stack][sizes[stack]]);
+		int entry = Move.complete(stack);
+		record(flipTop(stack) ? entry | FLIP : entry);
+	}
+
+	/**
+	 * Puts a finished run back on the stack it was removed from
+	 * @param entry the journal entry of the removal
+	 */
+	private void undoComplete(int entry)
+	{
+		int stack = Move.from(entry);
+		if((entry & FLIP) != 0)
+			setBacks(stack, backs[stack] + 1);
+		int suit = done[--doneCount];
+		for(int num = SUIT_CARDS; num >= 1; num--)
+			push(stack, card(suit, num));
+	}
+
+	/**
+	 * Turns the top card of the stack face up if it is face down
+	 * @param stack the index of the stack
+	 * @return whether or not a card was flipped
+	 */
+	private boolean flipTop(int stack)
+	{
+		if(sizes[stack] > 0 && backs[stack] == sizes[stack])
+		{
+			setBacks(stack, backs[stack] - 1);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param lower the card below
+	 * @param upper the card placed on it
+	 * @return whether or not the upper card is one lower and of the same suit
+	 */
+	private static boolean follows(int lower, int upper)
+	{
+		return upper == lower - 1 && suit(upper) == suit(lower);
+	}
+
+	private void push(int stack, int card)
+	{
+		int size = sizes[stack];
+		hash ^= Zobrist.card(stack, size, card);
+		if(runs[stack] > 0 && follows(stacks[stack][size - 1], card))
+			runs[stack]++;
+		else
+			runs[stack] = 1;
+		stacks[stack][size] = card;
+		sizes[stack] = size + 1;
+	}
+
+	/**
+	 * Removes the cards of a stack above the given size
+	 * @param stack the index of the stack
+	 * @param size the new size of the stack
+	 */
+	private void truncate(int stack, int size)
+	{
+		int[] pile = stacks[stack];
+		for(int j = size; j < sizes[stack]; j++)
+			hash ^= Zobrist.card(stack, j, pile[j]);
+		int removed = sizes[stack] - size;
+		sizes[stack] = size;
+		if(removed < runs[stack])
+			runs[stack] -= removed;
+		else
+			countRun(stack);
+	}
+
+	private void setBacks(int stack, int count)
+	{
+		hash ^= Zobrist.backs(stack, backs[stack]) ^ Zobrist.backs(stack, count);
+		backs[stack] = count;
+		countRun(stack);
+	}
+
+	/**
+	 * Counts the run on top of the stack again, after the cards it was on top of
+	 * were taken off or a card of the stack was turned over
+	 * @param stack the index of the stack
+	 */
+	private void countRun(int stack)
+	{
+		int size = sizes[stack];
+		int[] pile = stacks[stack];
+		int index = size - 1;
+		if(index < backs[stack])
+		{
+			runs[stack] = 0;
+			return;
+		}
+		while(index > backs[stack] && follows(pile[index - 1], pile[index]))
+			index--;
+		runs[stack] = size - index;
+	}
+
+	private void pushDraw(int card)
+	{
+		hash ^= Zobrist.draw(drawSize) ^ Zobrist.draw(drawSize + 1);
+		drawStack[drawSize++] = card;
+	}
+
+	private int popDraw()
+	{
+		hash ^= Zobrist.draw(drawSize) ^ Zobrist.draw(drawSize - 1);
+		return drawStack[--drawSize];
+	}
+
+	private void record(int entry)
+	{
+		if(journalSize == journal.length)
+			journal = Arrays.copyOf(journal, journalSize * 2);
+		journal[journalSize++] = entry;
+	}
+}
@@ -0,0 +1,334 @@
+/**
+ * Timeline.java
+ * Every line of play tried from a deal, kept as a tree of moves.
+ * Each node of the tree is one position, stored only as the move that reached it
+ * from its parent, so the positions of a game share everything before the point
+ * where they differ. Keeping a position is therefore a matter of keeping its
+ * Node, which never changes, and going back to an earlier position and playing
+ * another move starts a new branch instead of losing the old line.
+ * The Timeline moves one SpiderEngine between the nodes with undo and apply,
+ * so only the moves between the two positions are made.
+ * Every few moves a node also keeps its board, so any node can be forked into
+ * an engine of its own without moving the shared one.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class Timeline
+{
+	/*Moves between the nodes that keep their board*/
+	private static final int SNAPSHOT_INTERVAL = 32;
+
+	private final SpiderEngine engine;
+	private final Node root;
+	private Node current;
+	/*Told of every move made and undone, or null*/
+	private Listener listener;
+
+	/**
+	 * Starts a timeline at the current position of the engine
+	 * @param engine the engine that is moved between the positions of the timeline
+	 */
+	public Timeline(SpiderEngine engine)
+	{
+		this.engine = engine;
+		root = new Node(null, 0, engine.hash(), engine.saveBoard());
+		current = root;
+	}
+
+	/**
+	 * Sets what is told of every move the timeline makes or undoes in the engine
+	 * @param listener the listener, or null for none
+	 */
+	public void setListener(Listener listener)
+	{
+		this.listener = listener;
+	}
+
+	/**
+	 * @return the engine, which is in the position of the current node
+	 */
+	public SpiderEngine getEngine()
+	{
+		return engine;
+	}
+
+	/**
+	 * @return the position the timeline started at
+	 */
+	public Node getRoot()
+	{
+		return root;
+	}
+
+	/**
+	 * @return the position the engine is in
+	 */
+	public Node getCurrent()
+	{
+		return current;
+	}
+
+	/**
+	 * Makes a legal move from the current position. If the move was made
+	 * from this position before, the timeline follows that branch again.
+	 * @param move the encoded move
+	 * @return the position after the move
+	 */
+	public Node play(int move)
+	{
+		engine.apply(move);
+		Node next = current.child(move);
+		if(next == null)
+		{
+			byte[] board = (current.depth + 1) % SNAPSHOT_INTERVAL == 0 ? engine.saveBoard() : null;
+			next = new Node(current, move, engine.hash(), board);
+			current.children.add(next);
+		}
+		current.last = next;
+		current = next;
+		played(move);
+		return next;
+	}
+
+	/**
+	 * Goes back to the position before the last move
+	 * @return whether or not there was a move to go back from
+	 */
+	public boolean back()
+	{
+		if(current.parent == null)
+			return false;
+		engine.undo();
+		current = current.parent;
+		undone();
+		return true;
+	}
+
+	/**
+	 * Follows the branch that was last played from the current position.
+	 * If the engine still holds the move that back() undid, it is redone from
+	 * the journal of the engine instead of being checked and made again.
+	 * @return whether or not there was a branch to follow
+	 */
+	public boolean forward()
+	{
+		if(current.last == null)
+			return false;
+		if(engine.redoSize() > 0)
+			engine.redo();
+		else
+			engine.apply(current.last.move);
+		current = current.last;
+		played(current.move);
+		return true;
+	}
+
+	/**
+	 * Moves the engine to any position of the timeline, by going back to the
+	 * last position both lines share and playing the moves of the other line
+	 * @param node a position of this timeline
+	 */
+	public void goTo(Node node)
+	{
+		int[] path = new int[node.depth];
+		Node target = node;
+		Node shared = current;
+		while(target.depth > shared.depth)
+		{
+			path[target.depth - 1] = target.move;
+			target = target.parent;
+		}
+		while(shared.depth > target.depth)
+			shared = shared.parent;
+		while(shared != target)
+		{
+			if(target.parent == null)
+				throw new IllegalArgumentException("the node is not part of this timeline");
+			path[target.depth - 1] = target.move;
+			target = target.parent;
+			shared = shared.parent;
+		}
+		while(current != shared)
+			back();
+		for(int i = shared.depth; i < node.depth; i++)
+		{
+			engine.apply(path[i]);
+			current.last = current.child(path[i]);
+			current = current.last;
+			played(path[i]);
+		}
+	}
+
+	/**
+	 * Switches to the next line from the last position where more than one move
+	 * was tried, going to the end of that line as it was last played.
+	 * @return whether or not there was another line to switch to
+	 */
+	public boolean nextLine()
+	{
+		Node child = null;
+		Node branch = current;
+		while(branch != null && branch.children.size() < 2)
+		{
+			child = branch;
+			branch = branch.parent;
+		}
+		if(branch == null)
+			return false;
+		int index = child == null ? -1 : branch.children.indexOf(child);
+		Node end = branch.children.get((index + 1) % branch.children.size());
+		while(end.last != null)
+			end = end.last;
+		goTo(end);
+		return true;
+	}
+
+	private void played(int move)
+	{
+		if(listener != null)
+			listener.played(move);
+	}
+
+	private void undone()
+	{
+		if(listener != null)
+			listener.undone();
+	}
+
+	/**
+	 * Is told of every change the timeline makes to its engine,
+	 * such as to record the game as it is played
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called after a move is made, once the current node is the position after it
+		 * @param move the encoded move
+		 */
+		void played(int move);
+
+		/**
+		 * Called after the last move is undone, once the current node is the position before it
+		 */
+		void undone();
+	}
+
+	/**
+	 * One position of the timeline. Its move, parent and depth never change;
+	 * only new branches are added to it.
+	 */
+	public static final class Node
+	{
+		private final Node parent;
+		private final int move;
+		private final int depth;
+		private final long hash;
+		private final List<Node> children;
+		/*The position from saveBoard, kept every SNAPSHOT_INTERVAL moves, or null*/
+		private final byte[] board;
+		/*The branch last played from this position*/
+		private Node last;
+
+		private Node(Node parent, int move, long hash, byte[] board)
+		{
+			this.parent = parent;
+			this.move = move;
+			this.depth = parent == null ? 0 : parent.depth + 1;
+			this.hash = hash;
+			this.board = board;
+			children = new ArrayList<>(1);
+		}
+
+		/**
+		 * @return the position before this one, or null for the first position
+		 */
+		public Node getParent()
+		{
+			return parent;
+		}
+
+		/**
+		 * @return the move that reached this position from its parent
+		 */
+		public int getMove()
+		{
+			return move;
+		}
+
+		/**
+		 * @return the number of moves from the first position to this one
+		 */
+		public int getDepth()
+		{
+			return depth;
+		}
+
+		/**
+		 * @return the hash of the position, as SpiderEngine.hash() gave it
+		 */
+		public long getHash()
+		{
+			return hash;
+		}
+
+		/**
+		 * @return the positions reached by every move tried from this one
+		 */
+		public List<Node> getChildren()
+		{
+			return Collections.unmodifiableList(children);
+		}
+
+		/**
+		 * @return the moves from the first position to this one
+		 */
+		public int[] getMoves()
+		{
+			int[] moves = new int[depth];
+			for(Node node = this; node.parent != null; node = node.parent)
+				moves[node.depth - 1] = node.move;
+			return moves;
+		}
+
+		/**
+		 * Creates an engine of its own in this position, such as for a solver
+		 * or a hint search, without moving the engine of the timeline.
+		 * The closest earlier node that kept its board is loaded and the moves
+		 * after it are made, so fewer than SNAPSHOT_INTERVAL moves are replayed.
+		 * @return a new engine in this position
+		 */
+		public SpiderEngine fork()
+		{
+			int[] path = new int[SNAPSHOT_INTERVAL];
+			int count = 0;
+			Node node = this;
+			while(node.board == null)
+			{
+				path[count++] = node.move;
+				node = node.parent;
+			}
+			SpiderEngine engine = new SpiderEngine();
+			engine.loadBoard(node.board);
+			while(count > 0)
+				engine.apply(path[--count]);
+			return engine;
+		}
+
+		private Node child(int move)
+		{
+			for(Node child : children)
+			{
+				if(child.move == move)
+					return child;
+			}
+			return null;
+		}
+	}
+}
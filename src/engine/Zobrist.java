@@ -0,0 +1,73 @@
+/**
+ * Zobrist.java
+ * The random keys used to hash a position of the SpiderEngine.
+ * A position is hashed as the XOR of one key for every card at its place
+ * in its stack, one key for the number of face down cards of each stack
+ * and one key for the size of the draw stack, so a move only needs to
+ * XOR in and out the keys of what it changed.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package engine;
+
+import java.util.SplittableRandom;
+
+final class Zobrist
+{
+	/*Number of distinct card faces*/
+	private static final int FACES = 4 * SpiderEngine.SUIT_CARDS;
+
+	/*Fixed seed so that hashes are the same on every run*/
+	private static final long SEED = 0x5B1DE75011L;
+
+	/*Keys of every card at every place, of the face down counts and of the draw stack sizes*/
+	private static final long[] CARDS = new long[SpiderEngine.NUM_STACKS * SpiderEngine.TOTAL_CARDS * FACES];
+	private static final long[] BACKS = new long[SpiderEngine.NUM_STACKS * (SpiderEngine.TOTAL_CARDS + 1)];
+	private static final long[] DRAW = new long[SpiderEngine.DRAW_CARDS + 1];
+
+	static
+	{
+		SplittableRandom random = new SplittableRandom(SEED);
+		for(int i = 0; i < CARDS.length; i++)
+			CARDS[i] = random.nextLong();
+		for(int i = 0; i < BACKS.length; i++)
+			BACKS[i] = random.nextLong();
+		for(int i = 0; i < DRAW.length; i++)
+			DRAW[i] = random.nextLong();
+	}
+
+	private Zobrist()
+	{
+	}
+
+	/**
+	 * @param stack the index of the stack
+	 * @param index the index of the card in the stack
+	 * @param card the card
+	 * @return the key of the card at that place
+	 */
+	static long card(int stack, int index, int card)
+	{
+		return CARDS[(stack * SpiderEngine.TOTAL_CARDS + index) * FACES + card];
+	}
+
+	/**
+	 * @param stack the index of the stack
+	 * @param backs the number of face down cards in the stack
+	 * @return the key of that many face down cards in the stack
+	 */
+	static long backs(int stack, int backs)
+	{
+		return BACKS[stack * (SpiderEngine.TOTAL_CARDS + 1) + backs];
+	}
+
+	/**
+	 * @param size the number of cards in the draw stack
+	 * @return the key of the draw stack size
+	 */
+	static long draw(int size)
+	{
+		return DRAW[size];
+	}
+}
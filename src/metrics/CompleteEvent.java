@@ -0,0 +1,38 @@
+/**
+ * CompleteEvent.java
+ * A JDK Flight Recorder event for a move or deal of the player that removed
+ * King to Ace runs from the game, timed over the move.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("spi_sol.Complete")
+@Label("Completed Suit")
+@Category("Spider Solitaire")
+@Description("A move or deal of the player that removed King to Ace runs")
+@Enabled(false)
+@StackTrace(false)
+public class CompleteEvent extends Event
+{
+	@Label("Suit")
+	@Description("The suit of the last run removed")
+	public int suit;
+
+	@Label("Runs")
+	@Description("The number of runs the move removed")
+	public int runs;
+
+	@Label("Completed")
+	@Description("The number of runs removed so far in the game")
+	public int completed;
+}
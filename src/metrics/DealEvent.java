@@ -0,0 +1,29 @@
+/**
+ * DealEvent.java
+ * A JDK Flight Recorder event for dealing a card onto every stack from the drawing stack.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("spi_sol.Deal")
+@Label("Deal")
+@Category("Spider Solitaire")
+@Description("Cards dealt from the drawing stack")
+@Enabled(false)
+@StackTrace(false)
+public class DealEvent extends Event
+{
+	@Label("Cards Left")
+	@Description("The cards left in the drawing stack after the deal")
+	public int left;
+}
@@ -0,0 +1,143 @@
+/**
+ * LatencyHistogram.java
+ * Counts how long something takes, in buckets of powers of 2 of nanoseconds.
+ * Recording a time only adds to a few atomic longs, so it never locks,
+ * never creates objects, and can be done from any thread. The percentiles
+ * are found from the buckets, so they are at most twice the real time.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram implements LatencyHistogramMBean
+{
+	private static final double NANOS_PER_MICRO = 1000.0;
+
+	private final String name;
+	/*Bucket i counts the times of at least 2^(i-1) and under 2^i nanoseconds*/
+	private final AtomicLongArray buckets;
+	private final AtomicLong count;
+	private final AtomicLong total;
+	private final AtomicLong max;
+
+	/**
+	 * Creates an empty histogram
+	 * @param name the name it is shown with
+	 */
+	public LatencyHistogram(String name)
+	{
+		this.name = name;
+		buckets = new AtomicLongArray(Long.SIZE + 1);
+		count = new AtomicLong();
+		total = new AtomicLong();
+		max = new AtomicLong();
+	}
+
+	/**
+	 * Records how long something took
+	 * @param nanos the time in nanoseconds, such as the difference of two System.nanoTime()
+	 */
+	public void record(long nanos)
+	{
+		if(nanos < 0)
+			nanos = 0;
+		buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+		long longest = max.get();
+		while(nanos > longest && !max.compareAndSet(longest, nanos))
+			longest = max.get();
+	}
+
+	/**
+	 * Records the time since something started
+	 * @param startNanos the System.nanoTime() when it started
+	 */
+	public void recordSince(long startNanos)
+	{
+		record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * @return the name the histogram is shown with
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	@Override
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	@Override
+	public double getMeanMicros()
+	{
+		long n = count.get();
+		return n == 0 ? 0 : total.get() / NANOS_PER_MICRO / n;
+	}
+
+	@Override
+	public double getMedianMicros()
+	{
+		return percentile(0.5);
+	}
+
+	@Override
+	public double getP99Micros()
+	{
+		return percentile(0.99);
+	}
+
+	@Override
+	public double getMaxMicros()
+	{
+		return max.get() / NANOS_PER_MICRO;
+	}
+
+	/**
+	 * @param fraction the fraction of the times, from 0 to 1
+	 * @return the top of the bucket that fraction of the times are in, in microseconds
+	 */
+	public double percentile(double fraction)
+	{
+		long n = 0;
+		for(int i = 0; i < buckets.length(); i++)
+			n += buckets.get(i);
+		long wanted = (long) Math.ceil(n * fraction);
+		long seen = 0;
+		for(int i = 0; i < buckets.length(); i++)
+		{
+			seen += buckets.get(i);
+			if(seen >= wanted && seen > 0)
+				return Math.min((double) (1L << Math.min(i, Long.SIZE - 2)), max.get()) / NANOS_PER_MICRO;
+		}
+		return 0;
+	}
+
+	@Override
+	public void reset()
+	{
+		for(int i = 0; i < buckets.length(); i++)
+			buckets.set(i, 0);
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * @return the count and times of the histogram on one line
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%-8s count %8d  mean %9.1f us  median %9.1f us  p99 %9.1f us  max %9.1f us",
+				name, getCount(), getMeanMicros(), getMedianMicros(), getP99Micros(), getMaxMicros());
+	}
+}
@@ -0,0 +1,41 @@
+/**
+ * LatencyHistogramMBean.java
+ * What JMX shows of a LatencyHistogram, with every time in microseconds
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package metrics;
+
+public interface LatencyHistogramMBean
+{
+	/**
+	 * @return the number of times recorded
+	 */
+	long getCount();
+
+	/**
+	 * @return the mean of the times recorded
+	 */
+	double getMeanMicros();
+
+	/**
+	 * @return the time half of the times recorded are under
+	 */
+	double getMedianMicros();
+
+	/**
+	 * @return the time 99 out of 100 of the times recorded are under
+	 */
+	double getP99Micros();
+
+	/**
+	 * @return the longest time recorded
+	 */
+	double getMaxMicros();
+
+	/**
+	 * Forgets every time recorded so far
+	 */
+	void reset();
+}
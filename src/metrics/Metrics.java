@@ -0,0 +1,155 @@
+/**
+ * Metrics.java
+ * Times the parts of the game players wait on, and counts what they do,
+ * so it can be seen where the time goes when the game feels slow.
+ * The histograms and counters are shown over JMX, under the domain spi_sol,
+ * for example in JConsole or VisualVM, and can also be written to a stream
+ * every so often. Recording is lock-free and creates no objects.
+ * The same actions are also sent to JDK Flight Recorder as the events of
+ * this package, which are off unless a recording turns them on, for example
+ * with the settings file spi_sol.jfc at the top of the repository.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class Metrics implements MetricsMBean
+{
+	/*Time to paint the game*/
+	public static final LatencyHistogram PAINT = new LatencyHistogram("paint");
+	/*Time from a click of the mouse to the end of the paint that shows it*/
+	public static final LatencyHistogram CLICK = new LatencyHistogram("click");
+	/*Time to deal from the drawing stack*/
+	public static final LatencyHistogram DEAL = new LatencyHistogram("deal");
+	/*Time to undo*/
+	public static final LatencyHistogram UNDO = new LatencyHistogram("undo");
+	/*Time to check and make a move, including removing finished runs*/
+	public static final LatencyHistogram RULES = new LatencyHistogram("rules");
+
+	private static final LatencyHistogram[] HISTOGRAMS = {PAINT, CLICK, DEAL, UNDO, RULES};
+
+	private static final Metrics INSTANCE = new Metrics();
+
+	private final AtomicLong moves = new AtomicLong();
+	private final AtomicLong deals = new AtomicLong();
+	private final AtomicLong undos = new AtomicLong();
+	private final AtomicLong completedSuits = new AtomicLong();
+
+	private Metrics()
+	{
+	}
+
+	/**
+	 * Counts a run of cards moved by the player
+	 */
+	public static void moved()
+	{
+		INSTANCE.moves.incrementAndGet();
+	}
+
+	/**
+	 * Counts a deal from the drawing stack
+	 */
+	public static void dealt()
+	{
+		INSTANCE.deals.incrementAndGet();
+	}
+
+	/**
+	 * Counts a move or deal undone
+	 */
+	public static void undone()
+	{
+		INSTANCE.undos.incrementAndGet();
+	}
+
+	/**
+	 * Counts King to Ace runs removed
+	 * @param suits the number of runs removed
+	 */
+	public static void completed(int suits)
+	{
+		INSTANCE.completedSuits.addAndGet(suits);
+	}
+
+	@Override
+	public long getMoves()
+	{
+		return moves.get();
+	}
+
+	@Override
+	public long getDeals()
+	{
+		return deals.get();
+	}
+
+	@Override
+	public long getUndos()
+	{
+		return undos.get();
+	}
+
+	@Override
+	public long getCompletedSuits()
+	{
+		return completedSuits.get();
+	}
+
+	@Override
+	public String getReport()
+	{
+		return report();
+	}
+
+	/**
+	 * @return every counter and histogram as lines of text
+	 */
+	public static String report()
+	{
+		StringBuilder text = new StringBuilder();
+		text.append(String.format("moves %d  deals %d  undos %d  completed suits %d%n", INSTANCE.getMoves(),
+				INSTANCE.getDeals(), INSTANCE.getUndos(), INSTANCE.getCompletedSuits()));
+		for(LatencyHistogram histogram : HISTOGRAMS)
+			text.append(histogram).append(System.lineSeparator());
+		return text.toString();
+	}
+
+	/**
+	 * Shows the counters and every histogram over JMX
+	 * @throws JMException if they could not be registered, such as when they already are
+	 */
+	public static void register() throws JMException
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.registerMBean(INSTANCE, new ObjectName("spi_sol:type=Metrics"));
+		for(LatencyHistogram histogram : HISTOGRAMS)
+			server.registerMBean(histogram, new ObjectName("spi_sol:type=Latency,name=" + histogram.getName()));
+	}
+
+	/**
+	 * Writes the report to a stream every so often, on a thread of its own
+	 * @param periodSeconds the seconds between reports
+	 * @param out the stream to write to
+	 */
+	public static void startLogging(long periodSeconds, final PrintStream out)
+	{
+		ScheduledExecutorService logger = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "Metrics");
+			thread.setDaemon(true);
+			return thread;
+		});
+		logger.scheduleAtFixedRate(() -> out.print(report()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+	}
+}
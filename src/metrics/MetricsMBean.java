@@ -0,0 +1,36 @@
+/**
+ * MetricsMBean.java
+ * What JMX shows of the counters of Metrics
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package metrics;
+
+public interface MetricsMBean
+{
+	/**
+	 * @return the number of runs of cards moved by the player
+	 */
+	long getMoves();
+
+	/**
+	 * @return the number of times cards were dealt from the drawing stack
+	 */
+	long getDeals();
+
+	/**
+	 * @return the number of moves and deals undone
+	 */
+	long getUndos();
+
+	/**
+	 * @return the number of King to Ace runs removed
+	 */
+	long getCompletedSuits();
+
+	/**
+	 * @return every counter and latency as text, as it is written to the log
+	 */
+	String getReport();
+}
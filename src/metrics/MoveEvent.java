@@ -0,0 +1,38 @@
+/**
+ * MoveEvent.java
+ * A JDK Flight Recorder event for a run of cards moved by the player.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("spi_sol.Move")
+@Label("Move")
+@Category("Spider Solitaire")
+@Description("A run of cards moved by the player, including removing a finished run")
+@Enabled(false)
+@StackTrace(false)
+public class MoveEvent extends Event
+{
+	@Label("From")
+	public int from;
+
+	@Label("To")
+	public int to;
+
+	@Label("Cards")
+	public int count;
+
+	@Label("Flipped")
+	@Description("Whether a face down card was turned over")
+	public boolean flipped;
+}
@@ -0,0 +1,32 @@
+/**
+ * PaintEvent.java
+ * A JDK Flight Recorder event for a pass of painting the game on the Swing thread.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("spi_sol.Paint")
+@Label("Paint")
+@Category("Spider Solitaire")
+@Description("A pass of painting the game")
+@Enabled(false)
+@StackTrace(false)
+public class PaintEvent extends Event
+{
+	@Label("Cards Drawn")
+	@Description("Cards drawn on the Swing thread instead of copied from the cached layers")
+	public int cards;
+
+	@Label("Animating")
+	public boolean animating;
+}
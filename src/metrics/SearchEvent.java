@@ -0,0 +1,39 @@
+/**
+ * SearchEvent.java
+ * A JDK Flight Recorder event for a search of the solver, including the searches of hints.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("spi_sol.Search")
+@Label("Solver Search")
+@Category("Spider Solitaire")
+@Description("A search of a position for a win")
+@Enabled(false)
+@StackTrace(false)
+public class SearchEvent extends Event
+{
+	@Label("Result")
+	public String result;
+
+	@Label("Positions")
+	@Description("The number of positions searched")
+	public long nodes;
+
+	@Label("Solution Length")
+	@Description("The number of moves of the win found, or 0")
+	public int moves;
+
+	@Label("Threads")
+	public int threads;
+}
@@ -0,0 +1,29 @@
+/**
+ * UndoEvent.java
+ * A JDK Flight Recorder event for a move or deal undone by the player.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("spi_sol.Undo")
+@Label("Undo")
+@Category("Spider Solitaire")
+@Description("A move or deal undone by the player")
+@Enabled(false)
+@StackTrace(false)
+public class UndoEvent extends Event
+{
+	@Label("Moves Left")
+	@Description("The moves left to undo after this one")
+	public int left;
+}
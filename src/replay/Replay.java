@@ -0,0 +1,85 @@
+/**
+ * Replay.java
+ * The layout of a replay file, which holds any number of recorded games one
+ * after another, so that games can be appended while they are played.
+ * The file starts with the four bytes "SPRP" and a version byte. Each game is
+ * then its seed as a varint, its number of suits as one byte, and the events
+ * of the game as varints, ending with END.
+ * An event is drawing from the draw stack, undoing the last move, or a run
+ * move, which keeps the stack it is taken from, how many stacks further on it
+ * is placed and the number of cards, so that every event takes one or two bytes.
+ * Runs removed by a move are not recorded, since the engine removes them
+ * again when the move is replayed.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package replay;
+
+import engine.Move;
+import engine.SpiderEngine;
+
+public final class Replay
+{
+	/*The first bytes of every replay file*/
+	static final byte[] MAGIC = {'S', 'P', 'R', 'P'};
+	static final int VERSION = 1;
+
+	/*Events that are not moves, as returned by ReplayReader.nextEvent*/
+	public static final int END = -1;
+	public static final int UNDO = -2;
+
+	/*The values events are written as*/
+	private static final int END_TOKEN = 0;
+	private static final int DRAW_TOKEN = 1;
+	private static final int UNDO_TOKEN = 2;
+	private static final int RUN_TOKEN = 3;
+
+	/*Number of stacks a run can be placed on*/
+	private static final int OTHER_STACKS = SpiderEngine.NUM_STACKS - 1;
+
+	private Replay()
+	{
+	}
+
+	/**
+	 * @param event a move of the player, UNDO or END
+	 * @return the value the event is written as
+	 */
+	public static int token(int event)
+	{
+		if(event == END)
+			return END_TOKEN;
+		if(event == UNDO)
+			return UNDO_TOKEN;
+		if(Move.type(event) == Move.DEAL)
+			return DRAW_TOKEN;
+		if(Move.type(event) != Move.RUN)
+			throw new IllegalArgumentException("not a move of the player: " + Move.toString(event));
+		int from = Move.from(event);
+		int ahead = (Move.to(event) - from + SpiderEngine.NUM_STACKS) % SpiderEngine.NUM_STACKS;
+		return RUN_TOKEN + (from * OTHER_STACKS + ahead - 1) * SpiderEngine.SUIT_CARDS + Move.count(event) - 1;
+	}
+
+	/**
+	 * @param token the value an event was written as
+	 * @return the event, which is a move of the player, UNDO or END
+	 */
+	public static int event(int token)
+	{
+		if(token == END_TOKEN)
+			return END;
+		if(token == UNDO_TOKEN)
+			return UNDO;
+		if(token == DRAW_TOKEN)
+			return Move.DRAW;
+		int value = token - RUN_TOKEN;
+		int count = value % SpiderEngine.SUIT_CARDS + 1;
+		value /= SpiderEngine.SUIT_CARDS;
+		int from = value / OTHER_STACKS;
+		int ahead = value % OTHER_STACKS + 1;
+		if(from >= SpiderEngine.NUM_STACKS)
+			throw new IllegalArgumentException("not an event: " + token);
+		return Move.run(from, (from + ahead) % SpiderEngine.NUM_STACKS, count);
+	}
+}
@@ -0,0 +1,242 @@
+/**
+ * ReplayReader.java
+ * Reads the games of a replay file one event at a time. The file is mapped
+ * into memory a window at a time instead of being read onto the heap, so
+ * files of any size can be read with the same small amount of memory.
+ * Run from the command line to replay and count the games of a file as:
+ *     java replay.ReplayReader file
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package replay;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import engine.Deals;
+import engine.SpiderEngine;
+
+public class ReplayReader implements Closeable
+{
+	/*Number of bytes of the file mapped at a time*/
+	private static final long WINDOW = 1L << 26;
+
+	private final FileChannel channel;
+	private final long size;
+
+	/*The part of the file mapped, and where it starts in the file*/
+	private MappedByteBuffer buffer;
+	private long bufferStart;
+
+	/*The current game, and where it starts in the file*/
+	private long seed;
+	private int suits;
+	private long gameStart;
+	private boolean inGame;
+	/*Whether or not the file ends in the middle of its header, so it holds no games*/
+	private boolean headerCut;
+
+	/**
+	 * Opens a replay file. A file that ends in the middle of its header, as when the
+	 * program stopped right after the file was made, is read as holding no games,
+	 * and the end of its last finished game is the start of the file.
+	 * @param file the path of the file
+	 * @throws IOException if the file cannot be read or is not a replay file
+	 */
+	public ReplayReader(Path file) throws IOException
+	{
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		size = channel.size();
+		try
+		{
+			for(byte b : Replay.MAGIC)
+			{
+				if(readByte() != b)
+					throw new IOException(file + " is not a replay file");
+			}
+			int version = readByte();
+			if(version != Replay.VERSION)
+				throw new IOException(file + " has replay version " + version + ", expected " + Replay.VERSION);
+		}
+		catch(EOFException e)
+		{
+			headerCut = true;
+		}
+		catch(IOException e)
+		{
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Moves to the next game of the file, skipping what is left of the current game
+	 * @return whether or not there is another game
+	 * @throws IOException if the file cannot be read or the last game was cut short
+	 */
+	public boolean nextGame() throws IOException
+	{
+		if(headerCut)
+			return false;
+		while(inGame)
+			nextEvent();
+		gameStart = position();
+		if(gameStart >= size)
+			return false;
+		seed = readVarint();
+		suits = readByte();
+		if(!Deals.validSuits(suits))
+			throw new IOException("game at " + gameStart + " has " + suits + " suits");
+		inGame = true;
+		return true;
+	}
+
+	/**
+	 * @return the number of the deal of the current game
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * @return the number of suits of the current game
+	 */
+	public int getSuits()
+	{
+		return suits;
+	}
+
+	/**
+	 * @return where the current game starts in the file, or where the file
+	 * ends after its last game once nextGame has returned false
+	 */
+	public long getGameStart()
+	{
+		return gameStart;
+	}
+
+	/**
+	 * Reads the next event of the current game
+	 * @return a move encoded by Move, Replay.UNDO, or Replay.END after the last event
+	 * @throws IOException if the file cannot be read or the game was cut short
+	 */
+	public int nextEvent() throws IOException
+	{
+		if(!inGame)
+			return Replay.END;
+		long position = position();
+		try
+		{
+			int event = Replay.event((int) readVarint());
+			if(event == Replay.END)
+				inGame = false;
+			return event;
+		}
+		catch(IllegalArgumentException e)
+		{
+			throw new IOException("bad event at " + position, e);
+		}
+	}
+
+	/**
+	 * Deals the current game and plays the rest of its events
+	 * @param engine the engine to play the game in
+	 * @throws IOException if the file cannot be read or holds a move that is not legal
+	 */
+	public void play(SpiderEngine engine) throws IOException
+	{
+		engine.deal(Deals.deal(seed, suits));
+		int event;
+		while((event = nextEvent()) != Replay.END)
+		{
+			if(event == Replay.UNDO)
+				engine.undo();
+			else if(engine.isLegal(event))
+				engine.apply(event);
+			else
+				throw new IOException("illegal move in the game at " + gameStart);
+		}
+	}
+
+	/**
+	 * Unmaps the file and closes it
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		buffer = null;
+		channel.close();
+	}
+
+	/**
+	 * @return the position of the next byte to be read in the file
+	 */
+	private long position()
+	{
+		return buffer == null ? 0 : bufferStart + buffer.position();
+	}
+
+	private int readByte() throws IOException
+	{
+		if(buffer == null || !buffer.hasRemaining())
+		{
+			long start = position();
+			if(start >= size)
+				throw new EOFException("the replay ends in the middle of a game");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+			bufferStart = start;
+		}
+		return buffer.get() & 0xFF;
+	}
+
+	private long readVarint() throws IOException
+	{
+		long value = 0;
+		for(int shift = 0; shift < Long.SIZE; shift += 7)
+		{
+			int b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("varint too long at " + position());
+	}
+
+	/**
+	 * Replays every game of a file and prints how many there are and how many were won
+	 * @param args the path of the replay file
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 1)
+		{
+			System.out.println("usage: java replay.ReplayReader file");
+			return;
+		}
+		long games = 0;
+		long wins = 0;
+		long bytes;
+		SpiderEngine engine = new SpiderEngine();
+		try(ReplayReader reader = new ReplayReader(Paths.get(args[0])))
+		{
+			while(reader.nextGame())
+			{
+				reader.play(engine);
+				games++;
+				if(engine.isOver())
+					wins++;
+			}
+			bytes = reader.size;
+		}
+		System.out.printf("games: %d%nwon: %d%nbytes: %d%n", games, wins, bytes);
+	}
+}
@@ -0,0 +1,320 @@
+/**
+ * ReplaySeeker.java
+ * Jumps to any point of a recorded game. The game is played through once
+ * when it is loaded, keeping every line of play as a tree of moves, like a
+ * Timeline, and saving the board of every position interval moves deep.
+ * Seeking then loads the closest saved board before the position and makes
+ * only the moves after it, or undoes and makes moves from where the engine is
+ * when that is shorter, so moving back and forth through a long game never
+ * makes more than interval moves from a saved board.
+ * Only the boards are saved, not the moves before them, so the saved boards
+ * grow with the length of the game and not with its square. They are kept
+ * within a memory budget: while they would go over it, the interval is
+ * doubled and the boards that are no longer a multiple of it deep are dropped.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package replay;
+
+import java.io.IOException;
+import java.util.Arrays;
+import engine.Deals;
+import engine.SpiderEngine;
+
+public class ReplaySeeker
+{
+	/*Default number of moves between saved boards and most bytes they may use*/
+	public static final int DEFAULT_INTERVAL = 32;
+	public static final long DEFAULT_BUDGET = 1 << 20;
+
+	/*The node of the position the game starts at*/
+	private static final int ROOT = 0;
+	private static final int NONE = -1;
+
+	private final long seed;
+	private final int suits;
+	private final int[] events;
+	private final int length;
+	private final long budget;
+	private final SpiderEngine engine;
+
+	/*The tree of every position of the game, one node for each,
+	 *with the move from its parent, its depth and its children*/
+	private int[] parents;
+	private int[] moves;
+	private int[] depths;
+	private int[] firstChildren;
+	private int[] siblings;
+	private int nodeCount;
+	/*The node after each number of events*/
+	private int[] lines;
+
+	/*The board saved at each node interval moves deep, or null*/
+	private byte[][] boards;
+	private int boardCount;
+	private int interval;
+	private long checkpointBytes;
+
+	/*Number of events played in the engine, the node it is at,
+	 *and the node it started from, which it cannot undo past*/
+	private int position;
+	private int current;
+	private int base;
+
+	/**
+	 * Loads the current game of the reader, with the default interval and budget
+	 * @param reader a reader at the start of a game, just after nextGame
+	 * @throws IOException if the game cannot be read or holds a move that is not legal
+	 */
+	public ReplaySeeker(ReplayReader reader) throws IOException
+	{
+		this(reader, DEFAULT_INTERVAL, DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Loads the current game of the reader
+	 * @param reader a reader at the start of a game, just after nextGame
+	 * @param interval the number of moves between saved boards
+	 * @param budget the most bytes the saved boards may use
+	 * @throws IOException if the game cannot be read or holds a move that is not legal
+	 */
+	public ReplaySeeker(ReplayReader reader, int interval, long budget) throws IOException
+	{
+		if(interval < 1)
+			throw new IllegalArgumentException("interval must be at least 1: " + interval);
+		seed = reader.getSeed();
+		suits = reader.getSuits();
+		this.interval = interval;
+		this.budget = budget;
+		engine = new SpiderEngine();
+		engine.deal(Deals.deal(seed, suits));
+		parents = new int[64];
+		moves = new int[64];
+		depths = new int[64];
+		firstChildren = new int[64];
+		siblings = new int[64];
+		boards = new byte[64][];
+		addNode(NONE, 0);
+		int[] read = new int[64];
+		int[] line = new int[65];
+		int n = 0;
+		int event;
+		while((event = reader.nextEvent()) != Replay.END)
+		{
+			if(event != Replay.UNDO && !engine.isLegal(event))
+				throw new IOException("illegal move in the game at " + reader.getGameStart());
+			if(n == read.length)
+			{
+				read = Arrays.copyOf(read, n * 2);
+				line = Arrays.copyOf(line, n * 2 + 1);
+			}
+			read[n++] = event;
+			if(event == Replay.UNDO)
+			{
+				if(engine.undo())
+					current = parents[current];
+			}
+			else
+			{
+				engine.apply(event);
+				current = child(current, event);
+			}
+			line[n] = current;
+		}
+		events = read;
+		lines = line;
+		length = n;
+		position = n;
+		base = ROOT;
+	}
+
+	/**
+	 * @return the number of the deal of the game
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * @return the number of suits of the game
+	 */
+	public int getSuits()
+	{
+		return suits;
+	}
+
+	/**
+	 * @return the number of events of the game
+	 */
+	public int length()
+	{
+		return length;
+	}
+
+	/**
+	 * @return the number of events played in the engine
+	 */
+	public int position()
+	{
+		return position;
+	}
+
+	/**
+	 * @param index the index of an event
+	 * @return the event, a move encoded by Move or Replay.UNDO
+	 */
+	public int eventAt(int index)
+	{
+		if(index < 0 || index >= length)
+			throw new IndexOutOfBoundsException("event " + index + " of " + length);
+		return events[index];
+	}
+
+	/**
+	 * @return the engine, in the position after position() events. It may only
+	 * hold the moves since the board it was last loaded from, so it should not be undone.
+	 */
+	public SpiderEngine getEngine()
+	{
+		return engine;
+	}
+
+	/**
+	 * @return the number of moves between saved boards, which grows to stay within the budget
+	 */
+	public int getInterval()
+	{
+		return interval;
+	}
+
+	/**
+	 * @return the number of bytes used by the saved boards
+	 */
+	public long getCheckpointBytes()
+	{
+		return checkpointBytes;
+	}
+
+	/**
+	 * Puts the engine in the position after the given number of events
+	 * @param target the number of events to have played, from 0 to length()
+	 */
+	public void seek(int target)
+	{
+		if(target < 0 || target > length)
+			throw new IndexOutOfBoundsException("event " + target + " of " + length);
+		int node = lines[target];
+		int saved = node;
+		while(boards[saved] == null)
+			saved = parents[saved];
+		int shared = node;
+		int from = current;
+		while(depths[shared] > depths[from])
+			shared = parents[shared];
+		while(depths[from] > depths[shared])
+			from = parents[from];
+		while(shared != from)
+		{
+			shared = parents[shared];
+			from = parents[from];
+		}
+		if(depths[shared] < depths[base] || depths[current] + depths[node] - 2 * depths[shared]
+				> depths[node] - depths[saved])
+		{
+			engine.loadBoard(boards[saved]);
+			base = saved;
+			current = saved;
+			shared = saved;
+		}
+		while(current != shared)
+		{
+			engine.undo();
+			current = parents[current];
+		}
+		int[] path = new int[depths[node] - depths[shared]];
+		for(int i = node; i != shared; i = parents[i])
+			path[depths[i] - depths[shared] - 1] = moves[i];
+		for(int move : path)
+			engine.apply(move);
+		current = node;
+		position = target;
+	}
+
+	/**
+	 * Finds the node reached by a move, adding it the first time the move is made
+	 * @param parent the node the move is made from
+	 * @param move the encoded move, already applied to the engine
+	 * @return the node after the move
+	 */
+	private int child(int parent, int move)
+	{
+		for(int i = firstChildren[parent]; i != NONE; i = siblings[i])
+		{
+			if(moves[i] == move)
+				return i;
+		}
+		int node = addNode(parent, move);
+		siblings[node] = firstChildren[parent];
+		firstChildren[parent] = node;
+		return node;
+	}
+
+	/**
+	 * Adds a node for the position of the engine, saving its board
+	 * if it is a multiple of the interval deep
+	 * @return the new node
+	 */
+	private int addNode(int parent, int move)
+	{
+		if(nodeCount == parents.length)
+		{
+			int grown = nodeCount * 2;
+			parents = Arrays.copyOf(parents, grown);
+			moves = Arrays.copyOf(moves, grown);
+			depths = Arrays.copyOf(depths, grown);
+			firstChildren = Arrays.copyOf(firstChildren, grown);
+			siblings = Arrays.copyOf(siblings, grown);
+			boards = Arrays.copyOf(boards, grown);
+		}
+		int node = nodeCount++;
+		parents[node] = parent;
+		moves[node] = move;
+		depths[node] = parent == NONE ? 0 : depths[parent] + 1;
+		firstChildren[node] = NONE;
+		siblings[node] = NONE;
+		if(depths[node] % interval == 0)
+			checkpoint(node);
+		return node;
+	}
+
+	/**
+	 * Saves the board of the engine at a node, first doubling the interval
+	 * and dropping the boards it leaves out for as long as the new one
+	 * would go over the budget. The board of the first position is always kept.
+	 * @param node the node the engine is at, a multiple of the interval deep
+	 */
+	private void checkpoint(int node)
+	{
+		byte[] saved = engine.saveBoard();
+		while(checkpointBytes + saved.length > budget && boardCount > 1)
+		{
+			interval *= 2;
+			for(int i = 0; i < nodeCount; i++)
+			{
+				if(boards[i] != null && depths[i] % interval != 0)
+				{
+					checkpointBytes -= boards[i].length;
+					boards[i] = null;
+					boardCount--;
+				}
+			}
+			if(depths[node] % interval != 0)
+				return;
+		}
+		boards[node] = saved;
+		boardCount++;
+		checkpointBytes += saved.length;
+	}
+}
@@ -0,0 +1,175 @@
+/**
+ * ReplayWriter.java
+ * Appends recorded games to a replay file while they are played.
+ * A game is started with its seed and number of suits, then every move,
+ * draw and undo of the player is written as it happens, and the game is
+ * ended when the next one starts or the writer is closed.
+ * If the program stopped in the middle of a game the last time the file
+ * was written, that unfinished game is cut off when the file is opened again.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import engine.Deals;
+
+public class ReplayWriter implements Closeable
+{
+	/*Largest number of bytes of a varint of a long*/
+	private static final int MAX_VARINT = 10;
+
+	private final OutputStream out;
+	/*Whether every event is written to the file right away*/
+	private final boolean autoFlush;
+	private final byte[] varint;
+	private boolean inGame;
+
+	/**
+	 * Opens a replay file to add games to, creating it if it does not exist
+	 * @param file the path of the file
+	 * @param autoFlush whether every event is written to the file right away,
+	 * or only when the buffer is full, a game ends or flush is called
+	 * @throws IOException if the file cannot be opened or is not a replay file
+	 */
+	public ReplayWriter(Path file, boolean autoFlush) throws IOException
+	{
+		long length = completeLength(file);
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+		{
+			channel.truncate(length);
+		}
+		out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.APPEND));
+		this.autoFlush = autoFlush;
+		varint = new byte[MAX_VARINT];
+		if(length == 0)
+		{
+			out.write(Replay.MAGIC);
+			out.write(Replay.VERSION);
+		}
+	}
+
+	/**
+	 * @param file a replay file, which may not exist yet
+	 * @return the length of the file up to the end of its last finished game
+	 */
+	private static long completeLength(Path file) throws IOException
+	{
+		if(!Files.exists(file) || Files.size(file) == 0)
+			return 0;
+		try(ReplayReader reader = new ReplayReader(file))
+		{
+			try
+			{
+				while(reader.nextGame())
+				{
+					while(reader.nextEvent() != Replay.END)
+						continue;
+				}
+				return reader.getGameStart();
+			}
+			catch(EOFException e)
+			{
+				return reader.getGameStart();
+			}
+		}
+	}
+
+	/**
+	 * Starts recording a game, ending the game recorded before it
+	 * @param seed the number of the deal
+	 * @param suits the number of suits (1, 2 or 4)
+	 * @throws IOException if the file cannot be written
+	 */
+	public void startGame(long seed, int suits) throws IOException
+	{
+		if(!Deals.validSuits(suits))
+			throw new IllegalArgumentException("suits must be 1, 2 or 4: " + suits);
+		endGame();
+		writeVarint(seed);
+		out.write(suits);
+		inGame = true;
+		if(autoFlush)
+			out.flush();
+	}
+
+	/**
+	 * Records a move, a draw from the draw stack or an undo of the player
+	 * @param event a move encoded by Move, or Replay.UNDO
+	 * @throws IOException if the file cannot be written
+	 */
+	public void event(int event) throws IOException
+	{
+		if(!inGame)
+			throw new IllegalStateException("no game was started");
+		if(event == Replay.END)
+			throw new IllegalArgumentException("games are ended with endGame");
+		writeVarint(Replay.token(event));
+		if(autoFlush)
+			out.flush();
+	}
+
+	/**
+	 * Ends the game being recorded, if there is one, and writes it to the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void endGame() throws IOException
+	{
+		if(!inGame)
+			return;
+		writeVarint(Replay.token(Replay.END));
+		inGame = false;
+		out.flush();
+	}
+
+	/**
+	 * Writes every event recorded so far to the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void flush() throws IOException
+	{
+		out.flush();
+	}
+
+	/**
+	 * Ends the game being recorded and closes the file
+	 * @throws IOException if the file cannot be written
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			endGame();
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes seven bits of the value per byte, lowest first,
+	 * with the top bit of a byte set when more bytes follow
+	 */
+	private void writeVarint(long value) throws IOException
+	{
+		int n = 0;
+		while((value & ~0x7FL) != 0)
+		{
+			varint[n++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		varint[n++] = (byte) value;
+		out.write(varint, 0, n);
+	}
+}
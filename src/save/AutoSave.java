@@ -0,0 +1,450 @@
+/**
+ * AutoSave.java
+ * Keeps the game being played on disk so it can be picked up again after
+ * the program is closed or crashes. Every move and undo is appended to a log,
+ * and every so often the whole line of play is written as a snapshot and the
+ * log is started over, so the log stays short.
+ * The Swing thread only adds events to a buffer in memory. A background thread
+ * writes the buffer in batches a few times a second and forces it to the disk,
+ * so a slow disk never holds up the game.
+ * Each batch of the log carries a CRC32, and each log names the snapshot it
+ * follows, so a batch cut short by a crash, or a log left over from before
+ * the last snapshot, is ignored when the game is loaded.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package save;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import engine.Deals;
+import engine.SpiderEngine;
+import replay.Replay;
+
+public class AutoSave implements Closeable
+{
+	/*First bytes of the snapshot and the log*/
+	private static final int SNAPSHOT_MAGIC = 0x53505356;
+	private static final int LOG_MAGIC = 0x5350574C;
+	private static final int VERSION = 1;
+
+	/*Names of the files in the save directory*/
+	private static final String SNAPSHOT = "snapshot.bin";
+	private static final String LOG = "moves.wal";
+
+	/*Milliseconds between writes of the log, and events logged before a new snapshot*/
+	private static final long FLUSH_MILLIS = 250;
+	private static final int SNAPSHOT_EVENTS = 200;
+
+	/*Largest number of bytes of a varint of an int, and of a batch of the log*/
+	private static final int MAX_VARINT = 5;
+	private static final int MAX_BATCH = 1 << 24;
+
+	private final Path snapshotFile;
+	private final Path logFile;
+	private final ScheduledExecutorService writer;
+
+	/*Written by the Swing thread and taken by the writer, guarded by this*/
+	private byte[] pending;
+	private int pendingSize;
+	private final byte[] varint;
+	private byte[] pendingSnapshot;
+	private int eventsSinceSnapshot;
+
+	/*Used only by the writer thread*/
+	private FileChannel log;
+	private long generation;
+	private IOException failure;
+
+	/**
+	 * Saves games in a directory, creating it if needed. Nothing is written
+	 * until the first snapshot, so a saved game can be loaded before that.
+	 * @param directory the directory of the snapshot and the log
+	 * @throws IOException if the directory cannot be created
+	 */
+	public AutoSave(Path directory) throws IOException
+	{
+		Files.createDirectories(directory);
+		snapshotFile = directory.resolve(SNAPSHOT);
+		logFile = directory.resolve(LOG);
+		pending = new byte[256];
+		varint = new byte[MAX_VARINT];
+		generation = readGeneration(snapshotFile);
+		writer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "AutoSave");
+			thread.setDaemon(true);
+			return thread;
+		});
+		writer.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Saves the whole line of play, which replaces everything logged before it.
+	 * Called for every new game and whenever needsSnapshot says so.
+	 * @param seed the number of the deal
+	 * @param suits the number of suits
+	 * @param moves the moves from the deal to the current position
+	 * @param hash the hash of the current position, checked when the game is loaded
+	 */
+	public synchronized void snapshot(long seed, int suits, int[] moves, long hash)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + 2 * moves.length);
+		try(DataOutputStream out = new DataOutputStream(bytes))
+		{
+			out.writeLong(seed);
+			out.writeByte(suits);
+			out.writeLong(hash);
+			out.writeInt(moves.length);
+			for(int move : moves)
+				out.write(varint, 0, varint(Replay.token(move), varint, 0));
+		}
+		catch(IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		pendingSnapshot = bytes.toByteArray();
+		pendingSize = 0;
+		eventsSinceSnapshot = 0;
+	}
+
+	/**
+	 * Logs a move or an undo made after the last snapshot
+	 * @param event a move encoded by Move, or Replay.UNDO
+	 */
+	public synchronized void event(int event)
+	{
+		if(pendingSize + MAX_VARINT > pending.length)
+			pending = Arrays.copyOf(pending, pending.length * 2);
+		pendingSize += varint(Replay.token(event), pending, pendingSize);
+		eventsSinceSnapshot++;
+	}
+
+	/**
+	 * @return whether or not enough has been logged that a new snapshot should be taken
+	 */
+	public synchronized boolean needsSnapshot()
+	{
+		return eventsSinceSnapshot >= SNAPSHOT_EVENTS;
+	}
+
+	/**
+	 * Writes everything still in memory and stops the background thread.
+	 * If the background thread is still writing, nothing more is written,
+	 * so two writes never go to the log at once.
+	 * @throws IOException if the last writes failed, or the background thread did not stop
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		writer.shutdown();
+		boolean stopped = false;
+		try
+		{
+			stopped = writer.awaitTermination(FLUSH_MILLIS * 4, TimeUnit.MILLISECONDS);
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		if(!stopped)
+			throw new IOException("the last moves were still being written");
+		flush();
+		if(log != null)
+			log.close();
+		if(failure != null)
+			throw failure;
+	}
+
+	/**
+	 * Writes the new snapshot, if there is one, and the events logged since
+	 * the last write, and forces them to the disk. Runs on the writer thread,
+	 * and only holds the lock while taking the buffers.
+	 * A snapshot stays pending until it is in place, and no events are logged
+	 * while one is pending, since they follow it and not the snapshot the log is of.
+	 * If a batch cannot be written, the log is stopped and a new snapshot is asked
+	 * for, so no later batch is logged after the missing one.
+	 */
+	private void flush()
+	{
+		try
+		{
+			byte[] snapshot;
+			synchronized(this)
+			{
+				snapshot = pendingSnapshot;
+			}
+			if(snapshot != null)
+			{
+				writeSnapshot(snapshot);
+				synchronized(this)
+				{
+					if(pendingSnapshot == snapshot)
+						pendingSnapshot = null;
+				}
+			}
+			byte[] batch;
+			synchronized(this)
+			{
+				if(pendingSnapshot != null)
+					return;
+				batch = Arrays.copyOf(pending, pendingSize);
+				pendingSize = 0;
+			}
+			if(batch.length > 0 && log != null)
+				writeBatch(batch);
+		}
+		catch(IOException e)
+		{
+			if(failure == null)
+				System.err.println("Could not save the game: " + e.getMessage());
+			failure = e;
+		}
+	}
+
+	/**
+	 * Appends a batch of events to the log with its length and CRC32, and forces it to the disk
+	 */
+	private void writeBatch(byte[] batch) throws IOException
+	{
+		CRC32 crc = new CRC32();
+		crc.update(batch, 0, batch.length);
+		ByteBuffer buffer = ByteBuffer.allocate(batch.length + 8);
+		buffer.putInt(batch.length).put(batch).putInt((int) crc.getValue());
+		buffer.flip();
+		try
+		{
+			while(buffer.hasRemaining())
+				log.write(buffer);
+			log.force(false);
+		}
+		catch(IOException e)
+		{
+			FileChannel broken = log;
+			log = null;
+			synchronized(this)
+			{
+				eventsSinceSnapshot = SNAPSHOT_EVENTS;
+			}
+			try
+			{
+				broken.close();
+			}
+			catch(IOException closing)
+			{
+				e.addSuppressed(closing);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes the snapshot to a new file, forces it to the disk, puts it in place
+	 * of the old one in one step, and starts a new log that follows it.
+	 * The generation only goes up once the snapshot is in place.
+	 */
+	private void writeSnapshot(byte[] snapshot) throws IOException
+	{
+		long next = generation + 1;
+		Path temp = snapshotFile.resolveSibling(SNAPSHOT + ".tmp");
+		ByteBuffer buffer = ByteBuffer.allocate(snapshot.length + 20);
+		buffer.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putLong(next).put(snapshot);
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) crc.getValue());
+		buffer.flip();
+		try(FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			while(buffer.hasRemaining())
+				out.write(buffer);
+			out.force(true);
+		}
+		Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		generation = next;
+
+		FileChannel old = log;
+		log = null;
+		if(old != null)
+			old.close();
+		log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		ByteBuffer header = ByteBuffer.allocate(16);
+		header.putInt(LOG_MAGIC).putInt(VERSION).putLong(generation);
+		header.flip();
+		while(header.hasRemaining())
+			log.write(header);
+		log.force(true);
+	}
+
+	/**
+	 * Loads the game saved in a directory, checking every move as it is played again.
+	 * The log is read up to the first batch that is cut short or damaged.
+	 * @param directory the directory of the snapshot and the log
+	 * @return the saved game, or null if there is no saved game that can be read
+	 * @throws IOException if the files cannot be read
+	 */
+	public static SavedGame load(Path directory) throws IOException
+	{
+		byte[] snapshot;
+		try
+		{
+			snapshot = Files.readAllBytes(directory.resolve(SNAPSHOT));
+		}
+		catch(NoSuchFileException e)
+		{
+			return null;
+		}
+		if(snapshot.length < 20)
+			return null;
+		ByteBuffer in = ByteBuffer.wrap(snapshot);
+		CRC32 crc = new CRC32();
+		crc.update(snapshot, 0, snapshot.length - 4);
+		if(in.getInt() != SNAPSHOT_MAGIC || in.getInt() != VERSION
+				|| in.getInt(snapshot.length - 4) != (int) crc.getValue())
+			return null;
+		long generation = in.getLong();
+		long seed = in.getLong();
+		int suits = in.get();
+		long hash = in.getLong();
+		int count = in.getInt();
+		if(!Deals.validSuits(suits) || count < 0 || count > snapshot.length)
+			return null;
+		SpiderEngine engine = new SpiderEngine();
+		engine.deal(Deals.deal(seed, suits));
+		int[] moves = new int[count];
+		try
+		{
+			for(int i = 0; i < count; i++)
+			{
+				moves[i] = Replay.event(readVarint(in));
+				if(!engine.isLegal(moves[i]))
+					return null;
+				engine.apply(moves[i]);
+			}
+		}
+		catch(BufferUnderflowException | IllegalArgumentException e)
+		{
+			return null;
+		}
+		if(engine.hash() != hash)
+			return null;
+		int[] events = readLog(directory.resolve(LOG), generation, engine);
+		return new SavedGame(seed, suits, moves, events, engine.isOver());
+	}
+
+	/**
+	 * Reads the events of the log that follow the snapshot, playing them in the engine
+	 * @return the events that could be read and played
+	 */
+	private static int[] readLog(Path file, long generation, SpiderEngine engine) throws IOException
+	{
+		int[] events = new int[64];
+		int n = 0;
+		if(!Files.exists(file))
+			return new int[0];
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+		{
+			if(in.readInt() != LOG_MAGIC || in.readInt() != VERSION || in.readLong() != generation)
+				return new int[0];
+			while(true)
+			{
+				int length = in.readInt();
+				if(length <= 0 || length > MAX_BATCH)
+					break;
+				byte[] batch = new byte[length];
+				in.readFully(batch);
+				CRC32 crc = new CRC32();
+				crc.update(batch, 0, length);
+				if(in.readInt() != (int) crc.getValue())
+					break;
+				ByteBuffer buffer = ByteBuffer.wrap(batch);
+				while(buffer.hasRemaining())
+				{
+					int event = Replay.event(readVarint(buffer));
+					if(event == Replay.UNDO ? engine.historySize() == 0 : !engine.isLegal(event))
+						return Arrays.copyOf(events, n);
+					if(event == Replay.UNDO)
+						engine.undo();
+					else
+						engine.apply(event);
+					if(n == events.length)
+						events = Arrays.copyOf(events, n * 2);
+					events[n++] = event;
+				}
+			}
+		}
+		catch(EOFException | BufferUnderflowException | IllegalArgumentException e)
+		{
+			return Arrays.copyOf(events, n);
+		}
+		return Arrays.copyOf(events, n);
+	}
+
+	/**
+	 * @return the generation of the snapshot in the file, or 0 if there is none
+	 */
+	private static long readGeneration(Path file) throws IOException
+	{
+		if(!Files.exists(file))
+			return 0;
+		try(DataInputStream in = new DataInputStream(Files.newInputStream(file)))
+		{
+			if(in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION)
+				return 0;
+			return in.readLong();
+		}
+		catch(EOFException e)
+		{
+			return 0;
+		}
+	}
+
+	/**
+	 * Writes seven bits of the value per byte, lowest first,
+	 * with the top bit of a byte set when more bytes follow
+	 * @return the number of bytes written
+	 */
+	private static int varint(int value, byte[] out, int offset)
+	{
+		int n = offset;
+		while((value & ~0x7F) != 0)
+		{
+			out[n++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out[n++] = (byte) value;
+		return n - offset;
+	}
+
+	private static int readVarint(ByteBuffer in)
+	{
+		int value = 0;
+		for(int shift = 0; shift < Integer.SIZE; shift += 7)
+		{
+			int b = in.get();
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0)
+				return value;
+		}
+		throw new IllegalArgumentException("varint too long");
+	}
+}
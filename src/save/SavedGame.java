@@ -0,0 +1,68 @@
+/**
+ * SavedGame.java
+ * The game AutoSave found on disk: the deal, the moves of its last snapshot,
+ * and the moves and undos logged after that snapshot.
+ * Every move has been checked to be legal, so the game can be played again as it is.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package save;
+
+public class SavedGame
+{
+	private final long seed;
+	private final int suits;
+	private final int[] moves;
+	private final int[] events;
+	private final boolean over;
+
+	SavedGame(long seed, int suits, int[] moves, int[] events, boolean over)
+	{
+		this.seed = seed;
+		this.suits = suits;
+		this.moves = moves;
+		this.events = events;
+		this.over = over;
+	}
+
+	/**
+	 * @return the number of the deal
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * @return the number of suits
+	 */
+	public int getSuits()
+	{
+		return suits;
+	}
+
+	/**
+	 * @return the moves from the deal to the position of the snapshot
+	 */
+	public int[] getMoves()
+	{
+		return moves.clone();
+	}
+
+	/**
+	 * @return the moves and undos made after the snapshot, where an undo is Replay.UNDO
+	 */
+	public int[] getEvents()
+	{
+		return events.clone();
+	}
+
+	/**
+	 * @return whether or not the game was already won
+	 */
+	public boolean isOver()
+	{
+		return over;
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * GreedyPlayer.java
+ * Plays the move that looks best right now, scored like the solver orders
+ * its moves, and never goes back to a position it has already been in.
+ * Gives up when every move leads back to an earlier position.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package sim;
+
+import engine.SpiderEngine;
+import solver.MoveOrder;
+import solver.TranspositionTable;
+
+public class GreedyPlayer implements Player
+{
+	/*Size of the table of positions seen in a game*/
+	private static final int SEEN_BITS = 14;
+
+	/*Positions already played in this game*/
+	private final TranspositionTable seen = new TranspositionTable(SEEN_BITS);
+
+	@Override
+	public void newGame(SpiderEngine engine)
+	{
+		seen.newSearch();
+		seen.add(engine.hash());
+	}
+
+	@Override
+	public int chooseMove(SpiderEngine engine, int[] moves, int n)
+	{
+		int best = -1;
+		int bestScore = Integer.MIN_VALUE;
+		for(int i = 0; i < n; i++)
+		{
+			int score = MoveOrder.score(engine, moves[i]);
+			if(score > bestScore && isNew(engine, moves[i]))
+			{
+				best = moves[i];
+				bestScore = score;
+			}
+		}
+		if(best >= 0)
+		{
+			engine.apply(best);
+			seen.add(engine.hash());
+			engine.undo();
+		}
+		return best;
+	}
+
+	/**
+	 * @return whether or not the move leads to a position not yet played
+	 */
+	private boolean isNew(SpiderEngine engine, int move)
+	{
+		engine.apply(move);
+		long hash = engine.hash();
+		engine.undo();
+		return !seen.contains(hash);
+	}
+}
@@ -0,0 +1,30 @@
+/**
+ * Player.java
+ * An automatic player of spider solitaire used by the Simulator.
+ * A player is only used by one thread at a time, but every thread
+ * of the Simulator has its own player.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package sim;
+
+import engine.SpiderEngine;
+
+public interface Player
+{
+	/**
+	 * Called before the first move of every game
+	 * @param engine the newly dealt game
+	 */
+	void newGame(SpiderEngine engine);
+
+	/**
+	 * Picks the next move of the game
+	 * @param engine the game, which the player may change as long as it is put back
+	 * @param moves the legal moves of the game
+	 * @param n the number of legal moves, at least 1
+	 * @return the move to make, or -1 to give up the game
+	 */
+	int chooseMove(SpiderEngine engine, int[] moves, int n);
+}
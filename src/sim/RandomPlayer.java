@@ -0,0 +1,28 @@
+/**
+ * RandomPlayer.java
+ * Plays a random legal move, which is a baseline to compare other players with.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package sim;
+
+import java.util.SplittableRandom;
+import engine.SpiderEngine;
+
+public class RandomPlayer implements Player
+{
+	private SplittableRandom random;
+
+	@Override
+	public void newGame(SpiderEngine engine)
+	{
+		random = new SplittableRandom(engine.hash());
+	}
+
+	@Override
+	public int chooseMove(SpiderEngine engine, int[] moves, int n)
+	{
+		return moves[random.nextInt(n)];
+	}
+}
@@ -0,0 +1,109 @@
+/**
+ * Report.java
+ * The totals of a run of the Simulator: games played and won,
+ * moves made, draws from the draw stack and the time it took.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package sim;
+
+public class Report
+{
+	private long games;
+	private long wins;
+	private long moves;
+	private long draws;
+	private long nanos;
+
+	/**
+	 * Counts one finished game
+	 * @param won whether or not the game was won
+	 * @param moves the number of moves made in the game
+	 * @param draws the number of times ten cards were drawn from the draw stack
+	 */
+	void add(boolean won, int moves, int draws)
+	{
+		games++;
+		if(won)
+			wins++;
+		this.moves += moves;
+		this.draws += draws;
+	}
+
+	/**
+	 * Adds the totals of another report to this one
+	 * @param other the report of another thread
+	 */
+	void add(Report other)
+	{
+		games += other.games;
+		wins += other.wins;
+		moves += other.moves;
+		draws += other.draws;
+	}
+
+	void setNanos(long nanos)
+	{
+		this.nanos = nanos;
+	}
+
+	/**
+	 * @return the number of games played
+	 */
+	public long getGames()
+	{
+		return games;
+	}
+
+	/**
+	 * @return the number of games won
+	 */
+	public long getWins()
+	{
+		return wins;
+	}
+
+	/**
+	 * @return the share of games won, from 0 to 1
+	 */
+	public double winRate()
+	{
+		return games == 0 ? 0 : (double) wins / games;
+	}
+
+	/**
+	 * @return the average number of moves per game
+	 */
+	public double averageMoves()
+	{
+		return games == 0 ? 0 : (double) moves / games;
+	}
+
+	/**
+	 * @return the average number of draws from the draw stack per game
+	 */
+	public double averageDraws()
+	{
+		return games == 0 ? 0 : (double) draws / games;
+	}
+
+	/**
+	 * @return the number of games played per second
+	 */
+	public double gamesPerSecond()
+	{
+		return nanos == 0 ? 0 : games * 1e9 / nanos;
+	}
+
+	/**
+	 * @return the String representation of the report
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("games: %d%nwin rate: %.2f%%%naverage moves: %.1f%n"
+				+ "average draws: %.2f%ngames/sec: %.0f",
+				games, 100 * winRate(), averageMoves(), averageDraws(), gamesPerSecond());
+	}
+}
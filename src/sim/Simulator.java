@@ -0,0 +1,165 @@
+/**
+ * Simulator.java
+ * Plays many deals with an automatic Player, without any graphics,
+ * spread over every core, and reports how they went.
+ * Deal numbers are handed out to the threads in blocks, and the games are
+ * played with the SpiderEngine, so they follow the same rules as GameViewer:
+ * drawing is not allowed while a stack is empty, and King to Ace runs of
+ * the same suit are removed as soon as they are made.
+ * Run from the command line as:
+ *     java sim.Simulator suits games [greedy|random] [threads] [firstDeal]
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import engine.Deals;
+import engine.Move;
+import engine.SpiderEngine;
+
+public class Simulator
+{
+	/*Number of deals a thread takes at a time*/
+	private static final int BLOCK = 256;
+	/*Moves after which a game is given up*/
+	private static final int DEFAULT_MAX_MOVES = 2000;
+
+	private final int suits;
+	private final Supplier<Player> players;
+	private final int threads;
+	private final int maxMoves;
+
+	/**
+	 * Creates a simulator that uses every core
+	 * @param suits the number of suits (1, 2 or 4)
+	 * @param players makes one player for each thread
+	 */
+	public Simulator(int suits, Supplier<Player> players)
+	{
+		this(suits, players, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_MOVES);
+	}
+
+	/**
+	 * Creates a simulator
+	 * @param suits the number of suits (1, 2 or 4)
+	 * @param players makes one player for each thread
+	 * @param threads the number of threads to play on
+	 * @param maxMoves the moves after which a game is given up
+	 */
+	public Simulator(int suits, Supplier<Player> players, int threads, int maxMoves)
+	{
+		if(!Deals.validSuits(suits))
+			throw new IllegalArgumentException("suits must be 1, 2 or 4: " + suits);
+		this.suits = suits;
+		this.players = players;
+		this.threads = threads;
+		this.maxMoves = maxMoves;
+	}
+
+	/**
+	 * Plays the deals numbered from firstDeal onwards
+	 * @param firstDeal the number of the first deal
+	 * @param games the number of deals to play
+	 * @return the totals of all the games
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public Report run(final long firstDeal, final long games) throws InterruptedException
+	{
+		final AtomicLong nextBlock = new AtomicLong();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Report>> results = new ArrayList<>();
+		long start = System.nanoTime();
+		for(int t = 0; t < threads; t++)
+		{
+			results.add(pool.submit(() -> {
+				Report report = new Report();
+				Player player = players.get();
+				SpiderEngine engine = new SpiderEngine();
+				int[] cards = new int[SpiderEngine.TOTAL_CARDS];
+				int[] moves = new int[SpiderEngine.legalMovesBound()];
+				long block;
+				while((block = nextBlock.getAndAdd(BLOCK)) < games)
+				{
+					long end = Math.min(games, block + BLOCK);
+					for(long i = block; i < end; i++)
+						play(firstDeal + i, player, engine, cards, moves, report);
+				}
+				return report;
+			}));
+		}
+		pool.shutdown();
+		Report total = new Report();
+		try
+		{
+			for(Future<Report> result : results)
+				total.add(result.get());
+		}
+		catch(ExecutionException e)
+		{
+			throw new IllegalStateException("a player failed", e.getCause());
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+		total.setNanos(System.nanoTime() - start);
+		return total;
+	}
+
+	/**
+	 * Plays one deal to the end, or until the player gives up or runs out of moves
+	 */
+	private void play(long deal, Player player, SpiderEngine engine, int[] cards, int[] moves, Report report)
+	{
+		Deals.deal(deal, suits, cards);
+		engine.deal(cards);
+		player.newGame(engine);
+		int made = 0;
+		int draws = 0;
+		while(!engine.isOver() && made < maxMoves)
+		{
+			int n = engine.legalMoves(moves);
+			if(n == 0)
+				break;
+			int move = player.chooseMove(engine, moves, n);
+			if(move < 0)
+				break;
+			engine.apply(move);
+			made++;
+			if(Move.type(move) == Move.DEAL)
+				draws++;
+		}
+		report.add(engine.isOver(), made, draws);
+	}
+
+	/**
+	 * Plays deals from the command line and prints the report
+	 * @param args suits, games, and optionally the player, threads and first deal
+	 * @throws InterruptedException if interrupted while playing
+	 */
+	public static void main(String[] args) throws InterruptedException
+	{
+		if(args.length < 2)
+		{
+			System.out.println("usage: java sim.Simulator suits games [greedy|random] [threads] [firstDeal]");
+			return;
+		}
+		int suits = Integer.parseInt(args[0]);
+		long games = Long.parseLong(args[1]);
+		String name = args.length > 2 ? args[2] : "greedy";
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		long firstDeal = args.length > 4 ? Long.parseLong(args[4]) : 0;
+		Supplier<Player> players = name.equals("random") ? RandomPlayer::new : GreedyPlayer::new;
+		Simulator simulator = new Simulator(suits, players, threads, DEFAULT_MAX_MOVES);
+		System.out.println(simulator.run(firstDeal, games));
+	}
+}
@@ -0,0 +1,169 @@
+/**
+ * Analyzer.java
+ * Works out a hint and whether the game can still be won, on a thread of its own,
+ * so that the Swing thread never waits for a search.
+ * Each position is analyzed in two steps: the best looking move is reported
+ * right away, then the Solver searches for a win until it proves a win or loss
+ * or runs out of time. Analyzing a new position, such as after the player moves,
+ * stops the search of the old one, and its results are never reported.
+ * The listener is called on the thread of the analyzer.
+ * Like the Solver, the analysis knows the face down cards and the draw stack,
+ * so a position found winnable can be won by the right moves.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package solver;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import engine.SpiderEngine;
+
+public class Analyzer
+{
+	/**
+	 * Is told of the results of an analysis as they are found
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called first, with the move that looks best without searching
+		 * @param move the encoded move, or -1 if there is no legal move
+		 */
+		void bestMove(int move);
+
+		/**
+		 * Called when the search ends
+		 * @param result whether the position was proven winnable, unwinnable, or neither in time
+		 * @param move the first move of the win if there is one, otherwise the best looking move
+		 */
+		void finished(Solver.Result result, int move);
+	}
+
+	/*Size of the table of the solver*/
+	private static final int TABLE_BITS = 20;
+	/*Milliseconds between checks of whether the search should stop*/
+	private static final long CHECK_MILLIS = 20;
+
+	private final long budgetMillis;
+	private final Solver solver;
+	private final ExecutorService executor;
+	private final ScheduledExecutorService watchdog;
+
+	/*Increased for every new position, so older analyses know to stop*/
+	private final AtomicLong generation;
+
+	/**
+	 * Creates an analyzer with its own thread
+	 * @param budgetMillis the most milliseconds spent searching each position
+	 */
+	public Analyzer(long budgetMillis)
+	{
+		this.budgetMillis = budgetMillis;
+		solver = new Solver(TABLE_BITS, Solver.DEFAULT_MAX_DEPTH, Long.MAX_VALUE);
+		executor = Executors.newSingleThreadExecutor(r -> daemon(r, "Analyzer"));
+		watchdog = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "Analyzer watchdog"));
+		generation = new AtomicLong();
+	}
+
+	private static Thread daemon(Runnable runnable, String name)
+	{
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * Starts analyzing a position, stopping the analysis of any earlier one.
+	 * The position is copied before this returns, so it may be changed right away.
+	 * @param position the position to analyze
+	 * @param listener is told of the results
+	 */
+	public void analyze(SpiderEngine position, Listener listener)
+	{
+		final long id = generation.incrementAndGet();
+		solver.stop();
+		final SpiderEngine engine = position.fork();
+		executor.execute(() -> run(id, engine, listener));
+	}
+
+	/**
+	 * Stops the analysis being run, without reporting its results
+	 */
+	public void cancel()
+	{
+		generation.incrementAndGet();
+		solver.stop();
+	}
+
+	/**
+	 * Stops the threads of the analyzer once it is no longer needed
+	 */
+	public void shutdown()
+	{
+		cancel();
+		executor.shutdownNow();
+		watchdog.shutdownNow();
+	}
+
+	private void run(final long id, SpiderEngine engine, Listener listener)
+	{
+		if(generation.get() != id)
+			return;
+		int best = bestMove(engine);
+		listener.bestMove(best);
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+		ScheduledFuture<?> check = watchdog.scheduleWithFixedDelay(() -> {
+			if(generation.get() != id || System.nanoTime() > deadline)
+				solver.stop();
+		}, 0, CHECK_MILLIS, TimeUnit.MILLISECONDS);
+		Solver.Result result;
+		try
+		{
+			result = solver.solve(engine);
+		}
+		finally
+		{
+			check.cancel(false);
+		}
+		if(generation.get() != id)
+			return;
+		int[] solution = solver.getSolution();
+		listener.finished(result, solution != null && solution.length > 0 ? solution[0] : best);
+	}
+
+	/**
+	 * @param engine a position
+	 * @return the move that looks best, preferring moves that make progress,
+	 * or -1 if there is no legal move
+	 */
+	public static int bestMove(SpiderEngine engine)
+	{
+		int[] moves = new int[SpiderEngine.legalMovesBound()];
+		int n = engine.legalMoves(moves);
+		int[] progress = Arrays.copyOf(moves, n);
+		int kept = MoveOrder.filter(engine, progress, n);
+		if(kept > 0)
+		{
+			moves = progress;
+			n = kept;
+		}
+		int best = -1;
+		int bestScore = Integer.MIN_VALUE;
+		for(int i = 0; i < n; i++)
+		{
+			int score = MoveOrder.score(engine, moves[i]);
+			if(score > bestScore)
+			{
+				best = moves[i];
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * ConcurrentTranspositionTable.java
+ * A TranspositionTable that many threads can add to at once without locks.
+ * Hashes are kept in buckets of four like the TranspositionTable, and
+ * an empty slot is claimed with compare-and-set, so two threads adding the
+ * same position agree on which one added it first. A hash replaced by
+ * another thread only means its position may be searched again.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ConcurrentTranspositionTable implements PositionTable
+{
+	/*The stored hashes, where 0 is an empty slot*/
+	private final AtomicLongArray table;
+	private final int mask;
+
+	/*Changes the hashes of each new search*/
+	private volatile long salt;
+
+	/**
+	 * Creates a table that holds 2^bits hashes
+	 * @param bits the log base 2 of the number of hashes held
+	 */
+	public ConcurrentTranspositionTable(int bits)
+	{
+		table = new AtomicLongArray(1 << Math.max(bits, 2));
+		mask = table.length() - TranspositionTable.BUCKET;
+	}
+
+	/**
+	 * Adds the hash of a position to the table
+	 * @param hash the hash of the position
+	 * @return whether or not the hash was new to the table
+	 */
+	@Override
+	public boolean add(long hash)
+	{
+		hash ^= salt;
+		if(hash == 0)
+			hash = 1;
+		int bucket = TranspositionTable.index(hash, mask);
+		for(int i = bucket; i < bucket + TranspositionTable.BUCKET; i++)
+		{
+			long stored = table.get(i);
+			if(stored == hash)
+				return false;
+			if(stored == 0)
+			{
+				if(table.compareAndSet(i, 0, hash))
+					return true;
+				if(table.get(i) == hash)
+					return false;
+			}
+		}
+		table.set(bucket + (int) (hash >>> 62), hash);
+		return true;
+	}
+
+	/**
+	 * Forgets every hash without clearing the memory. Must not be
+	 * called while other threads are adding to the table.
+	 */
+	@Override
+	public void newSearch()
+	{
+		salt += TranspositionTable.SALT_STEP;
+	}
+}
@@ -0,0 +1,416 @@
+/**
+ * DealCatalog.java
+ * A file of how hard each of a range of deals is, made once by solving every
+ * deal and then read by memory mapping it, so looking up a deal or finding
+ * one of a given difficulty takes microseconds and none of it is loaded into
+ * the heap. Each catalog is of one number of suits and one range of deal
+ * numbers, the same numbers Deals shuffles the cards with.
+ *
+ * The file starts with a header, followed by one record of 16 bytes per deal:
+ *     byte result (0 not solved, 1 winnable, 2 unwinnable, 3 unknown),
+ *     byte difficulty (1 to 10 for winnable deals, otherwise 0),
+ *     byte played (1 once the deal has been played), byte unused,
+ *     int moves of the solution found, long positions searched.
+ * After the records, the index of every deal is listed grouped by difficulty,
+ * and the header holds where each group starts.
+ * The magic number is written last, so a catalog left half made is never opened.
+ * Run from the command line as:
+ *     java solver.DealCatalog build file suits firstDeal deals [threads]
+ *     java solver.DealCatalog find file difficulty
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import engine.Deals;
+import engine.SpiderEngine;
+
+public class DealCatalog implements Closeable
+{
+	/*First bytes of the file*/
+	private static final int MAGIC = 0x53504443;
+	private static final int VERSION = 1;
+
+	/*Results of the search of a deal*/
+	public static final int NOT_SOLVED = 0;
+	public static final int WINNABLE = 1;
+	public static final int UNWINNABLE = 2;
+	public static final int UNKNOWN = 3;
+
+	/*Difficulties of winnable deals, from easiest to hardest*/
+	public static final int EASIEST = 1;
+	public static final int HARDEST = 10;
+
+	/*Positions searched to win a deal of the easiest difficulty, and of the hardest, as powers of 2*/
+	private static final int EASY_NODES_LOG = 7;
+	private static final int HARD_NODES_LOG = 24;
+
+	/*Layout of the header: magic, version, suits, deals, first deal, then the starts of the groups*/
+	private static final int GROUPS_AT = 24;
+	private static final int HEADER = 128;
+	/*Layout of a record*/
+	private static final int RECORD = 16;
+	private static final int RESULT_AT = 0;
+	private static final int DIFFICULTY_AT = 1;
+	private static final int PLAYED_AT = 2;
+	private static final int MOVES_AT = 4;
+	private static final int NODES_AT = 8;
+
+	/*Number of deals a thread solves at a time*/
+	private static final int BLOCK = 64;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int suits;
+	private final int deals;
+	private final long firstDeal;
+	private final int indexStart;
+
+	/**
+	 * Opens a catalog made by build. Deals can be marked as played,
+	 * which is written straight into the file.
+	 * @param file the catalog
+	 * @throws IOException if the file cannot be read or is not a whole catalog
+	 */
+	public DealCatalog(Path file) throws IOException
+	{
+		channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			if(channel.size() < HEADER)
+				throw new IOException("not a deal catalog: " + file);
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+			if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+				throw new IOException("not a deal catalog, or one not finished: " + file);
+			suits = buffer.getInt(8);
+			deals = buffer.getInt(12);
+			firstDeal = buffer.getLong(16);
+			indexStart = HEADER + deals * RECORD;
+			if(channel.size() != size(deals))
+				throw new IOException("the deal catalog is cut short: " + file);
+		}
+		catch(IOException e)
+		{
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Makes a catalog by solving every deal of a range, spread over many threads
+	 * @param file the file to write, which is replaced
+	 * @param suits the number of suits (1, 2 or 4)
+	 * @param firstDeal the number of the first deal
+	 * @param deals the number of deals
+	 * @param threads the number of threads to solve on
+	 * @throws IOException if the file cannot be written
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public static void build(Path file, final int suits, final long firstDeal, final int deals, int threads)
+			throws IOException, InterruptedException
+	{
+		if(!Deals.validSuits(suits))
+			throw new IllegalArgumentException("suits must be 1, 2 or 4: " + suits);
+		if(deals < 0 || size(deals) > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("too many deals for one catalog: " + deals);
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			final MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size(deals));
+			final AtomicLong nextBlock = new AtomicLong();
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			List<Future<?>> results = new ArrayList<>();
+			for(int t = 0; t < threads; t++)
+			{
+				results.add(pool.submit(() -> {
+					Solver solver = new Solver(Solver.DEFAULT_TABLE_BITS, Solver.DEFAULT_MAX_DEPTH,
+							Solver.DEFAULT_MAX_NODES);
+					SpiderEngine engine = new SpiderEngine();
+					int[] cards = new int[SpiderEngine.TOTAL_CARDS];
+					long block;
+					while((block = nextBlock.getAndAdd(BLOCK)) < deals)
+					{
+						long end = Math.min(deals, block + BLOCK);
+						for(int i = (int) block; i < end; i++)
+						{
+							Deals.deal(firstDeal + i, suits, cards);
+							engine.deal(cards);
+							write(out, i, solver.solve(engine), solver);
+						}
+					}
+				}));
+			}
+			pool.shutdown();
+			try
+			{
+				for(Future<?> result : results)
+					result.get();
+			}
+			catch(ExecutionException e)
+			{
+				throw new IllegalStateException("a solver failed", e.getCause());
+			}
+			finally
+			{
+				pool.shutdownNow();
+			}
+
+			int[] starts = new int[HARDEST + 2];
+			for(int i = 0; i < deals; i++)
+				starts[out.get(HEADER + i * RECORD + DIFFICULTY_AT) + 1]++;
+			for(int d = 1; d < starts.length; d++)
+				starts[d] += starts[d - 1];
+			int[] next = starts.clone();
+			int indexStart = HEADER + deals * RECORD;
+			for(int i = 0; i < deals; i++)
+				out.putInt(indexStart + 4 * next[out.get(HEADER + i * RECORD + DIFFICULTY_AT)]++, i);
+
+			out.putInt(4, VERSION).putInt(8, suits).putInt(12, deals).putLong(16, firstDeal);
+			for(int d = 0; d < starts.length; d++)
+				out.putInt(GROUPS_AT + 4 * d, starts[d]);
+			out.force();
+			out.putInt(0, MAGIC);
+			out.force();
+		}
+	}
+
+	/**
+	 * Writes the result of solving one deal into its record
+	 */
+	private static void write(MappedByteBuffer out, int index, Solver.Result result, Solver solver)
+	{
+		int at = HEADER + index * RECORD;
+		int[] solution = solver.getSolution();
+		int code = result == Solver.Result.WINNABLE ? WINNABLE
+				: result == Solver.Result.UNWINNABLE ? UNWINNABLE : UNKNOWN;
+		out.put(at + RESULT_AT, (byte) code);
+		out.put(at + DIFFICULTY_AT, (byte) (code == WINNABLE ? difficulty(solver.getNodes()) : 0));
+		out.putInt(at + MOVES_AT, solution == null ? 0 : solution.length);
+		out.putLong(at + NODES_AT, solver.getNodes());
+	}
+
+	/**
+	 * @param nodes the positions searched to win a deal
+	 * @return the difficulty of the deal, which grows with the power of 2 of the positions searched
+	 */
+	static int difficulty(long nodes)
+	{
+		int log = Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(1, nodes));
+		int difficulty = EASIEST + (log - EASY_NODES_LOG) * (HARDEST - EASIEST) / (HARD_NODES_LOG - EASY_NODES_LOG);
+		return Math.max(EASIEST, Math.min(HARDEST, difficulty));
+	}
+
+	/**
+	 * @param deals the number of deals of a catalog
+	 * @return the number of bytes of the catalog
+	 */
+	private static long size(long deals)
+	{
+		return HEADER + deals * (RECORD + 4);
+	}
+
+	/**
+	 * @return the number of suits of the deals of the catalog
+	 */
+	public int getSuits()
+	{
+		return suits;
+	}
+
+	/**
+	 * @return the number of the first deal of the catalog
+	 */
+	public long getFirstDeal()
+	{
+		return firstDeal;
+	}
+
+	/**
+	 * @return the number of deals in the catalog
+	 */
+	public int size()
+	{
+		return deals;
+	}
+
+	/**
+	 * @param seed the number of a deal
+	 * @return whether or not the deal is in the catalog
+	 */
+	public boolean contains(long seed)
+	{
+		return seed - firstDeal >= 0 && seed - firstDeal < deals;
+	}
+
+	/**
+	 * @param seed the number of a deal in the catalog
+	 * @return NOT_SOLVED, WINNABLE, UNWINNABLE or UNKNOWN
+	 */
+	public int getResult(long seed)
+	{
+		return buffer.get(record(seed) + RESULT_AT);
+	}
+
+	/**
+	 * @param seed the number of a deal in the catalog
+	 * @return the difficulty from EASIEST to HARDEST of a winnable deal, otherwise 0
+	 */
+	public int getDifficulty(long seed)
+	{
+		return buffer.get(record(seed) + DIFFICULTY_AT);
+	}
+
+	/**
+	 * @param seed the number of a deal in the catalog
+	 * @return the number of moves of the win found, or 0 if none was found
+	 */
+	public int getSolutionLength(long seed)
+	{
+		return buffer.getInt(record(seed) + MOVES_AT);
+	}
+
+	/**
+	 * @param seed the number of a deal in the catalog
+	 * @return the number of positions searched to solve the deal
+	 */
+	public long getNodes(long seed)
+	{
+		return buffer.getLong(record(seed) + NODES_AT);
+	}
+
+	/**
+	 * @param seed the number of a deal in the catalog
+	 * @return whether or not the deal has been played
+	 */
+	public boolean isPlayed(long seed)
+	{
+		return buffer.get(record(seed) + PLAYED_AT) != 0;
+	}
+
+	/**
+	 * Marks a deal as played, so find no longer gives it. Does nothing for
+	 * a deal that is not in the catalog.
+	 * @param seed the number of the deal
+	 */
+	public void markPlayed(long seed)
+	{
+		if(contains(seed))
+			buffer.put(record(seed) + PLAYED_AT, (byte) 1);
+	}
+
+	/**
+	 * @param difficulty the difficulty from EASIEST to HARDEST
+	 * @return the number of deals in the catalog of the difficulty
+	 */
+	public int count(int difficulty)
+	{
+		return groupStart(difficulty + 1) - groupStart(difficulty);
+	}
+
+	/**
+	 * Finds a winnable deal of a difficulty that has not been played, starting
+	 * from a random place among the deals of the difficulty
+	 * @param difficulty the difficulty from EASIEST to HARDEST
+	 * @param random picks where to start looking
+	 * @return the number of the deal, or -1 if every deal of the difficulty has been played
+	 */
+	public long find(int difficulty, SplittableRandom random)
+	{
+		if(difficulty < EASIEST || difficulty > HARDEST)
+			throw new IllegalArgumentException("difficulty must be from 1 to 10: " + difficulty);
+		int first = groupStart(difficulty);
+		int count = count(difficulty);
+		if(count == 0)
+			return -1;
+		int start = random.nextInt(count);
+		for(int i = 0; i < count; i++)
+		{
+			int index = buffer.getInt(indexStart + 4 * (first + (start + i) % count));
+			if(buffer.get(HEADER + index * RECORD + PLAYED_AT) == 0)
+				return firstDeal + index;
+		}
+		return -1;
+	}
+
+	private int groupStart(int difficulty)
+	{
+		return buffer.getInt(GROUPS_AT + 4 * difficulty);
+	}
+
+	private int record(long seed)
+	{
+		if(!contains(seed))
+			throw new IllegalArgumentException("deal " + seed + " is not in the catalog");
+		return HEADER + (int) (seed - firstDeal) * RECORD;
+	}
+
+	/**
+	 * Writes the deals marked as played to the disk and closes the file
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		buffer.force();
+		channel.close();
+	}
+
+	/**
+	 * Builds a catalog, or finds a deal of a difficulty in one, from the command line
+	 * @param args build with the file, suits, first deal, deals and optionally threads,
+	 * or find with the file and difficulty
+	 * @throws IOException if the catalog cannot be read or written
+	 * @throws InterruptedException if interrupted while building
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		if(args.length >= 5 && args[0].equals("build"))
+		{
+			int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+			long start = System.nanoTime();
+			build(Paths.get(args[1]), Integer.parseInt(args[2]), Long.parseLong(args[3]),
+					Integer.parseInt(args[4]), threads);
+			System.out.printf("built in %.1f s%n", (System.nanoTime() - start) / 1e9);
+			try(DealCatalog catalog = new DealCatalog(Paths.get(args[1])))
+			{
+				for(int d = EASIEST; d <= HARDEST; d++)
+					System.out.printf("difficulty %d: %d%n", d, catalog.count(d));
+			}
+		}
+		else if(args.length >= 3 && args[0].equals("find"))
+		{
+			try(DealCatalog catalog = new DealCatalog(Paths.get(args[1])))
+			{
+				long start = System.nanoTime();
+				long seed = catalog.find(Integer.parseInt(args[2]), new SplittableRandom());
+				long nanos = System.nanoTime() - start;
+				if(seed < 0)
+					System.out.println("no unplayed deal of that difficulty");
+				else
+					System.out.printf("deal #%d (%d suits, %d moves) found in %d us%n", seed, catalog.getSuits(),
+							catalog.getSolutionLength(seed), nanos / 1000);
+			}
+		}
+		else
+		{
+			System.out.println("usage: java solver.DealCatalog build file suits firstDeal deals [threads]");
+			System.out.println("       java solver.DealCatalog find file difficulty");
+		}
+	}
+}
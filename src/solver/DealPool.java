@@ -0,0 +1,351 @@
+/**
+ * DealPool.java
+ * Keeps a few deals of each number of suits that the Solver has found
+ * winnable, so a new game can start on a winnable deal right away.
+ * Background threads of low priority shuffle and solve random deals until
+ * every pool is full, and go back to solving whenever a deal is taken.
+ * The pools are saved to a file whenever they change, so deals solved while
+ * one game was played are still there the next time the program starts,
+ * and a deal taken is not given again after a crash.
+ * Like the Solver, the pool knows the face down cards and the draw stack,
+ * so every deal in it can be won by the right moves.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import engine.Deals;
+import engine.SpiderEngine;
+
+public class DealPool implements Closeable
+{
+	/*First bytes of the file*/
+	private static final int MAGIC = 0x53504450;
+	private static final int VERSION = 1;
+
+	/*The numbers of suits a pool is kept for*/
+	private static final int[] SUITS = {1, 2, 4};
+
+	/*Deals kept of each number of suits*/
+	public static final int DEFAULT_CAPACITY = 8;
+
+	/*Size of the table of the solver of each thread*/
+	private static final int TABLE_BITS = 20;
+
+	private final Path file;
+	private final int capacity;
+	private final ExecutorService producers;
+	/*Saves the pool after a deal is taken, so the thread taking it never waits on the disk*/
+	private final ExecutorService saver;
+
+	/*The winnable deals of each number of suits, oldest first, guarded by this*/
+	private final ArrayDeque<Long>[] pools;
+	private boolean closed;
+	/*Whether or not a save is waiting to run on the saver, guarded by this*/
+	private boolean saveQueued;
+	/*The solver of each producer thread, stopped when the pool is closed, guarded by this*/
+	private final List<Solver> solvers;
+
+	/*Guards writing the file, so the producers never write it at the same time*/
+	private final Object fileLock;
+
+	/**
+	 * Creates a pool of the default size, solving with every core but one
+	 * @param file the file the pool is kept in, which is read if it exists
+	 */
+	public DealPool(Path file)
+	{
+		this(file, DEFAULT_CAPACITY, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	}
+
+	/**
+	 * Creates a pool and starts filling it
+	 * @param file the file the pool is kept in, which is read if it exists
+	 * @param capacity the number of deals kept of each number of suits
+	 * @param threads the number of threads solving deals
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public DealPool(Path file, int capacity, int threads)
+	{
+		this.file = file;
+		this.capacity = capacity;
+		fileLock = new Object();
+		solvers = new ArrayList<>();
+		pools = new ArrayDeque[SUITS[SUITS.length - 1] + 1];
+		for(int suits : SUITS)
+			pools[suits] = new ArrayDeque<>();
+		try
+		{
+			read();
+		}
+		catch(IOException e)
+		{
+			System.err.println("Could not read the winnable deals: " + e.getMessage());
+		}
+		producers = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "DealPool");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+		for(int i = 0; i < threads; i++)
+			producers.execute(this::produce);
+		saver = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "DealPool save");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Takes the oldest winnable deal of a number of suits. Never waits for a
+	 * deal to be solved: if the pool is empty, a random deal is given instead.
+	 * The pool is saved without it on another thread.
+	 * @param suits the number of suits (1, 2 or 4)
+	 * @return the number of the deal
+	 */
+	public synchronized long take(int suits)
+	{
+		if(!Deals.validSuits(suits))
+			throw new IllegalArgumentException("suits must be 1, 2 or 4: " + suits);
+		Long seed = pools[suits].poll();
+		if(seed == null)
+			return Deals.randomSeed();
+		notifyAll();
+		if(!saveQueued && !closed)
+		{
+			saveQueued = true;
+			saver.execute(this::save);
+		}
+		return seed;
+	}
+
+	/**
+	 * @param suits the number of suits (1, 2 or 4)
+	 * @return the number of winnable deals ready to be taken
+	 */
+	public synchronized int size(int suits)
+	{
+		return pools[suits].size();
+	}
+
+	/**
+	 * Stops solving deals and saves the pool
+	 * @throws IOException if the pool could not be saved
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		synchronized(this)
+		{
+			closed = true;
+			for(Solver solver : solvers)
+				solver.stop();
+			notifyAll();
+		}
+		producers.shutdownNow();
+		saver.shutdown();
+		try
+		{
+			producers.awaitTermination(1, TimeUnit.SECONDS);
+			saver.awaitTermination(1, TimeUnit.SECONDS);
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		write();
+	}
+
+	/**
+	 * Solves random deals of the number of suits with the fewest deals ready,
+	 * adding the winnable ones, and waits while every pool is full.
+	 * Runs on each of the producer threads until the pool is closed.
+	 */
+	private void produce()
+	{
+		Solver solver = new Solver(TABLE_BITS, Solver.DEFAULT_MAX_DEPTH, Solver.DEFAULT_MAX_NODES);
+		synchronized(this)
+		{
+			solvers.add(solver);
+		}
+		SpiderEngine engine = new SpiderEngine();
+		int[] cards = new int[SpiderEngine.TOTAL_CARDS];
+		try
+		{
+			while(true)
+			{
+				int suits = emptiest();
+				if(suits < 0)
+					return;
+				long seed = Deals.randomSeed();
+				Deals.deal(seed, suits, cards);
+				engine.deal(cards);
+				if(solver.solve(engine) == Solver.Result.WINNABLE && add(suits, seed))
+					write();
+			}
+		}
+		catch(InterruptedException e)
+		{
+			return;
+		}
+		catch(IOException e)
+		{
+			System.err.println("Could not save the winnable deals: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Saves the pool once a deal was taken. Runs on the saver thread, and saves
+	 * every deal taken since it was queued at once.
+	 */
+	private void save()
+	{
+		synchronized(this)
+		{
+			saveQueued = false;
+		}
+		try
+		{
+			write();
+		}
+		catch(IOException e)
+		{
+			System.err.println("Could not save the winnable deals: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Waits until a pool is not full
+	 * @return the number of suits of the pool with the fewest deals, or -1 once closed
+	 * @throws InterruptedException if the thread is stopped while waiting
+	 */
+	private synchronized int emptiest() throws InterruptedException
+	{
+		while(!closed)
+		{
+			int best = -1;
+			for(int suits : SUITS)
+			{
+				if(pools[suits].size() < capacity && (best < 0 || pools[suits].size() < pools[best].size()))
+					best = suits;
+			}
+			if(best >= 0)
+				return best;
+			wait();
+		}
+		return -1;
+	}
+
+	/**
+	 * @return whether or not the deal was added, which it is not when the pool is full
+	 */
+	private synchronized boolean add(int suits, long seed)
+	{
+		if(closed || pools[suits].size() >= capacity || pools[suits].contains(seed))
+			return false;
+		pools[suits].add(seed);
+		return true;
+	}
+
+	/**
+	 * Reads the deals saved in the file. A file that is missing,
+	 * cut short or corrupted is left out, and the pool starts empty.
+	 * @throws IOException if the file cannot be read
+	 */
+	private void read() throws IOException
+	{
+		ByteBuffer buffer;
+		try
+		{
+			buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+		}
+		catch(NoSuchFileException e)
+		{
+			return;
+		}
+		try
+		{
+			if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				return;
+			CRC32 crc = new CRC32();
+			crc.update(buffer.array(), 0, buffer.limit() - 4);
+			if(buffer.getInt(buffer.limit() - 4) != (int) crc.getValue())
+				return;
+			for(int suits : SUITS)
+			{
+				int count = buffer.getInt();
+				for(int i = 0; i < count; i++)
+				{
+					long seed = buffer.getLong();
+					if(pools[suits].size() < capacity)
+						pools[suits].add(seed);
+				}
+			}
+		}
+		catch(BufferUnderflowException | IndexOutOfBoundsException e)
+		{
+			for(int suits : SUITS)
+				pools[suits].clear();
+		}
+	}
+
+	/**
+	 * Saves the deals of every pool, replacing the file all at once
+	 * so it is never left half written
+	 * @throws IOException if the file cannot be written
+	 */
+	private void write() throws IOException
+	{
+		synchronized(fileLock)
+		{
+			ByteBuffer buffer;
+			synchronized(this)
+			{
+				int total = 0;
+				for(int suits : SUITS)
+					total += pools[suits].size();
+				buffer = ByteBuffer.allocate(12 + 4 * SUITS.length + 8 * total);
+				buffer.putInt(MAGIC).putInt(VERSION);
+				for(int suits : SUITS)
+				{
+					buffer.putInt(pools[suits].size());
+					for(long seed : pools[suits])
+						buffer.putLong(seed);
+				}
+			}
+			CRC32 crc = new CRC32();
+			crc.update(buffer.array(), 0, buffer.position());
+			buffer.putInt((int) crc.getValue());
+			buffer.flip();
+			Files.createDirectories(file.toAbsolutePath().getParent());
+			Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+			try(FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING))
+			{
+				while(buffer.hasRemaining())
+					out.write(buffer);
+				out.force(true);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * MoveOrder.java
+ * Sorts the legal moves of a position so the moves most likely to lead
+ * to a win are searched first. Moves that build runs of the same suit or
+ * turn over a face down card come first, drawing from the draw stack and
+ * moves that only shuffle cards between stacks come last.
+ * No move is ever left out, so a search using this order is still complete.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package solver;
+
+import java.util.SplittableRandom;
+import engine.Move;
+import engine.SpiderEngine;
+
+public final class MoveOrder
+{
+	/*Scores of the different kinds of moves*/
+	private static final int SAME_SUIT = 40;
+	private static final int FLIPS_CARD = 30;
+	private static final int EMPTIES_STACK = 20;
+	private static final int ONTO_EMPTY = -20;
+	private static final int WHOLE_STACK_ONTO_EMPTY = -100;
+	private static final int BREAKS_RUN = -50;
+	private static final int LEAVES_PARENT = -30;
+	private static final int DRAW = -40;
+	/*Extra score for turning over a card of a stack with few face down cards left*/
+	private static final int FEW_BACKS = 4;
+	private static final int SIX_CARDS = 6;
+
+	private MoveOrder()
+	{
+	}
+
+	/**
+	 * Sorts the moves from the best to the worst
+	 * @param engine the position the moves are made from
+	 * @param moves the legal moves of the position
+	 * @param n the number of moves
+	 * @param scores space for at least n scores
+	 * @param random shuffles moves of close scores
+	 * @param noise the most any score is raised by at random, or 0 to not shuffle
+	 */
+	static void sort(SpiderEngine engine, int[] moves, int n, int[] scores, SplittableRandom random, int noise)
+	{
+		for(int i = 0; i < n; i++)
+		{
+			int move = moves[i];
+			int score = score(engine, move);
+			if(noise > 0)
+				score += random.nextInt(noise);
+			int j = i - 1;
+			while(j >= 0 && scores[j] < score)
+			{
+				moves[j + 1] = moves[j];
+				scores[j + 1] = scores[j];
+				j--;
+			}
+			moves[j + 1] = move;
+			scores[j + 1] = score;
+		}
+	}
+
+	/**
+	 * Removes the moves that do not make progress, which are the moves that
+	 * take a run off a card one higher, unless they put it on the same suit
+	 * instead of another suit. Only the first empty stack is moved onto,
+	 * and never with a whole stack.
+	 * @param engine the position the moves are made from
+	 * @param moves the legal moves of the position
+	 * @param n the number of moves
+	 * @return the number of moves kept at the start of the array
+	 */
+	static int filter(SpiderEngine engine, int[] moves, int n)
+	{
+		int firstEmpty = -1;
+		for(int i = SpiderEngine.NUM_STACKS - 1; i >= 0; i--)
+		{
+			if(engine.size(i) == 0)
+				firstEmpty = i;
+		}
+		int kept = 0;
+		for(int i = 0; i < n; i++)
+		{
+			if(makesProgress(engine, moves[i], firstEmpty))
+				moves[kept++] = moves[i];
+		}
+		return kept;
+	}
+
+	private static boolean makesProgress(SpiderEngine engine, int move, int firstEmpty)
+	{
+		if(Move.type(move) == Move.DEAL)
+			return true;
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int index = engine.size(from) - Move.count(move);
+		int backs = engine.backs(from);
+		if(engine.size(to) == 0 && (to != firstEmpty || index == 0))
+			return false;
+		if(index == backs)
+			return true;
+		int base = engine.cardAt(from, index);
+		int parent = engine.cardAt(from, index - 1);
+		if(SpiderEngine.num(parent) != SpiderEngine.num(base) + 1)
+			return true;
+		if(engine.size(to) == 0 || SpiderEngine.suit(parent) == SpiderEngine.suit(base))
+			return false;
+		int top = engine.cardAt(to, engine.size(to) - 1);
+		return SpiderEngine.suit(top) == SpiderEngine.suit(base);
+	}
+
+	/**
+	 * @param engine the position the move is made from
+	 * @param move a legal move of the position
+	 * @return how promising the move is, higher being better
+	 */
+	public static int score(SpiderEngine engine, int move)
+	{
+		if(Move.type(move) == Move.DEAL)
+			return DRAW;
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int count = Move.count(move);
+		int index = engine.size(from) - count;
+		int base = engine.cardAt(from, index);
+		int backs = engine.backs(from);
+		int score = 0;
+
+		boolean sameSuit = engine.size(to) > 0
+				&& SpiderEngine.suit(engine.cardAt(to, engine.size(to) - 1)) == SpiderEngine.suit(base);
+		if(sameSuit)
+			score += SAME_SUIT + count + engine.runLength(to);
+		if(engine.size(to) == 0)
+			score += index == 0 ? WHOLE_STACK_ONTO_EMPTY : ONTO_EMPTY;
+		else if(index == 0)
+			score += EMPTIES_STACK;
+		if(index == backs && backs > 0)
+			score += FLIPS_CARD + FEW_BACKS * (SIX_CARDS - backs);
+		if(index > backs && !sameSuit)
+		{
+			int parent = engine.cardAt(from, index - 1);
+			if(SpiderEngine.num(parent) == SpiderEngine.num(base) + 1)
+				score += SpiderEngine.suit(parent) == SpiderEngine.suit(base) ? BREAKS_RUN : LEAVES_PARENT;
+		}
+		return score;
+	}
+}
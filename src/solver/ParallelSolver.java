@@ -0,0 +1,324 @@
+/**
+ * ParallelSolver.java
+ * Solves a position like the Solver, on the threads of a fork/join pool,
+ * one for each core unless told otherwise.
+ * The short searches over the moves that make progress are spread over the
+ * threads of a fork/join pool, each thread with its own small table.
+ * If none of them wins, the moves of the first few depths are split into
+ * fork/join tasks that search every move and share one
+ * ConcurrentTranspositionTable, and idle threads steal the tasks of busy ones.
+ * As soon as any thread finds a win, every other thread stops.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import engine.SpiderEngine;
+import metrics.SearchEvent;
+
+public class ParallelSolver
+{
+	/*Number of short searches per task*/
+	private static final int RESTART_CHUNK = 4;
+	/*Depths of the move tree that are split into tasks*/
+	private static final int SPLIT_DEPTH = 2;
+	/*Size of the table of each thread for the short searches*/
+	private static final int RESTART_TABLE_BITS = 16;
+
+	private final ForkJoinPool pool;
+	private final ConcurrentTranspositionTable table;
+	private final int maxDepth;
+	private final long maxNodes;
+
+	/*Set when the search is asked to give up or a win is found*/
+	private final AtomicBoolean stopped;
+
+	/*The search and table of each thread, kept from one solve to the next,
+	 *and the workers that took part in the current solve*/
+	private final ThreadLocal<Worker> workers;
+	private final List<Worker> allWorkers;
+	private final AtomicLong sharedNodes;
+	/*Counts the solves, so a worker knows when it was last reset*/
+	private int generation;
+
+	/*The first win found*/
+	private final AtomicReference<int[]> solution;
+	private long nodes;
+
+	/**
+	 * Creates a solver using every core, with the default table size and limits
+	 */
+	public ParallelSolver()
+	{
+		this(Runtime.getRuntime().availableProcessors(), Solver.DEFAULT_TABLE_BITS + 2,
+				Solver.DEFAULT_MAX_DEPTH, Solver.DEFAULT_MAX_NODES * 4);
+	}
+
+	/**
+	 * Creates a solver
+	 * @param threads the number of threads to search with
+	 * @param tableBits the log base 2 of the number of positions the shared table holds
+	 * @param maxDepth the most moves searched in a row
+	 * @param maxNodes the most positions searched by all threads before giving up
+	 */
+	public ParallelSolver(int threads, int tableBits, int maxDepth, long maxNodes)
+	{
+		pool = new ForkJoinPool(threads);
+		table = new ConcurrentTranspositionTable(tableBits);
+		this.maxDepth = maxDepth;
+		this.maxNodes = maxNodes;
+		stopped = new AtomicBoolean();
+		allWorkers = new ArrayList<>();
+		sharedNodes = new AtomicLong();
+		workers = ThreadLocal.withInitial(Worker::new);
+		solution = new AtomicReference<>();
+	}
+
+	/**
+	 * Searches the position for a win. The position itself is not changed.
+	 * Only one position can be solved at a time.
+	 * @param position the position to search, such as the engine of a GameComponent
+	 * @return whether the position is winnable, unwinnable, or unknown
+	 * when the search ran out of depth or positions or was stopped
+	 */
+	public synchronized Solver.Result solve(SpiderEngine position)
+	{
+		SearchEvent event = new SearchEvent();
+		event.begin();
+		SpiderEngine engine = position.fork();
+		stopped.set(false);
+		solution.set(null);
+		allWorkers.clear();
+		sharedNodes.set(0);
+		generation++;
+		Solver.Result result;
+		if(engine.isOver())
+		{
+			solution.set(new int[0]);
+			result = Solver.Result.WINNABLE;
+		}
+		else
+		{
+			result = pool.invoke(new RestartTask(engine, 0, Solver.RESTARTS));
+			if(result == Solver.Result.UNKNOWN && sharedNodes.get() < maxNodes && !stopped.get())
+			{
+				table.newSearch();
+				table.add(engine.hash());
+				result = pool.invoke(new SplitTask(engine, new int[0]));
+			}
+		}
+		nodes = 0;
+		for(Worker worker : allWorkers)
+			nodes += worker.search.getNodes() - worker.start;
+		if(event.shouldCommit())
+		{
+			int[] moves = solution.get();
+			event.result = result.name();
+			event.nodes = nodes;
+			event.moves = moves == null ? 0 : moves.length;
+			event.threads = pool.getParallelism();
+			event.commit();
+		}
+		return result;
+	}
+
+	/**
+	 * Asks a running search to give up, from any thread
+	 */
+	public void stop()
+	{
+		stopped.set(true);
+	}
+
+	/**
+	 * Stops the threads of the solver once it is no longer needed
+	 */
+	public void shutdown()
+	{
+		pool.shutdownNow();
+	}
+
+	/**
+	 * @return the moves that win the position of the last search,
+	 * or null when it was not found winnable
+	 */
+	public int[] getSolution()
+	{
+		int[] moves = solution.get();
+		return moves == null ? null : Arrays.copyOf(moves, moves.length);
+	}
+
+	/**
+	 * @return the number of positions searched by all threads in the last search
+	 */
+	public long getNodes()
+	{
+		return nodes;
+	}
+
+	/**
+	 * Records a win and stops every other thread
+	 * @param prefix the moves made before the search that found the win
+	 * @param moves the moves of the search that won
+	 */
+	private void found(int[] prefix, int[] moves)
+	{
+		int[] all = Arrays.copyOf(prefix, prefix.length + moves.length);
+		System.arraycopy(moves, 0, all, prefix.length, moves.length);
+		if(solution.compareAndSet(null, all))
+			stopped.set(true);
+	}
+
+	/**
+	 * @param a the result of one part of the search
+	 * @param b the result of another part
+	 * @return the result of both parts together
+	 */
+	private static Solver.Result combine(Solver.Result a, Solver.Result b)
+	{
+		if(a == Solver.Result.WINNABLE || b == Solver.Result.WINNABLE)
+			return Solver.Result.WINNABLE;
+		if(a == Solver.Result.UNKNOWN || b == Solver.Result.UNKNOWN)
+			return Solver.Result.UNKNOWN;
+		return Solver.Result.UNWINNABLE;
+	}
+
+	/**
+	 * Gives the worker of the thread, made the first time the thread searches
+	 * and reset the first time it searches in each solve
+	 * @return the worker of the calling thread
+	 */
+	private Worker worker()
+	{
+		Worker worker = workers.get();
+		if(worker.generation != generation)
+		{
+			worker.generation = generation;
+			worker.start = worker.search.getNodes();
+			synchronized(allWorkers)
+			{
+				allWorkers.add(worker);
+			}
+		}
+		return worker;
+	}
+
+	/**
+	 * The search and small table of one thread
+	 */
+	private class Worker
+	{
+		private final Search search = new Search(maxDepth, stopped, sharedNodes, maxNodes);
+		private final TranspositionTable restartTable = new TranspositionTable(RESTART_TABLE_BITS);
+		/*The solve the worker was last reset for, and its positions searched before it*/
+		private int generation;
+		private long start;
+	}
+
+	/**
+	 * Runs a range of the short searches, split in halves until few are left
+	 */
+	private class RestartTask extends RecursiveTask<Solver.Result>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final SpiderEngine engine;
+		private final int first;
+		private final int last;
+
+		RestartTask(SpiderEngine engine, int first, int last)
+		{
+			this.engine = engine;
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected Solver.Result compute()
+		{
+			if(stopped.get())
+				return Solver.Result.UNKNOWN;
+			if(last - first > RESTART_CHUNK)
+			{
+				int middle = (first + last) >>> 1;
+				RestartTask left = new RestartTask(engine, first, middle);
+				RestartTask right = new RestartTask(engine, middle, last);
+				right.fork();
+				Solver.Result result = left.compute();
+				return combine(result, right.join());
+			}
+			Worker worker = worker();
+			SpiderEngine copy = engine.fork();
+			Solver.Result result = Solver.restarts(copy, worker.search, worker.restartTable,
+					Long.MAX_VALUE, first, last, stopped);
+			if(result == Solver.Result.WINNABLE)
+				found(new int[0], worker.search.getSolution());
+			return result;
+		}
+	}
+
+	/**
+	 * Searches every move from a position, forking a task for each move
+	 * while the position is within the first depths of the tree
+	 */
+	private class SplitTask extends RecursiveTask<Solver.Result>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final SpiderEngine engine;
+		private final int[] prefix;
+
+		SplitTask(SpiderEngine engine, int[] prefix)
+		{
+			this.engine = engine;
+			this.prefix = prefix;
+		}
+
+		@Override
+		protected Solver.Result compute()
+		{
+			if(stopped.get())
+				return Solver.Result.UNKNOWN;
+			if(prefix.length >= SPLIT_DEPTH)
+			{
+				Search search = worker().search;
+				search.shuffle(null, 0);
+				Solver.Result result = search.run(engine, table, false, Long.MAX_VALUE);
+				if(result == Solver.Result.WINNABLE)
+					found(prefix, search.getSolution());
+				return result;
+			}
+			int[] moves = new int[SpiderEngine.legalMovesBound()];
+			int n = engine.legalMoves(moves);
+			MoveOrder.sort(engine, moves, n, new int[n], null, 0);
+			List<SplitTask> tasks = new ArrayList<>();
+			for(int i = 0; i < n; i++)
+			{
+				SpiderEngine child = engine.fork();
+				child.apply(moves[i]);
+				int[] path = Arrays.copyOf(prefix, prefix.length + 1);
+				path[prefix.length] = moves[i];
+				if(child.isOver())
+				{
+					found(path, new int[0]);
+					return Solver.Result.WINNABLE;
+				}
+				if(table.add(child.hash()))
+					tasks.add(new SplitTask(child, path));
+			}
+			Solver.Result result = Solver.Result.UNWINNABLE;
+			for(SplitTask task : invokeAll(tasks))
+				result = combine(result, task.join());
+			return result;
+		}
+	}
+}
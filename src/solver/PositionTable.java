@@ -0,0 +1,23 @@
+/**
+ * PositionTable.java
+ * A table of the hashes of positions that have already been searched.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package solver;
+
+interface PositionTable
+{
+	/**
+	 * Adds the hash of a position to the table
+	 * @param hash the hash of the position
+	 * @return whether or not the hash was new to the table
+	 */
+	boolean add(long hash);
+
+	/**
+	 * Forgets every hash added so far
+	 */
+	void newSearch();
+}
@@ -0,0 +1,197 @@
+/**
+ * Search.java
+ * One depth first search for a win from a position, used by the Solver
+ * and by each thread of the ParallelSolver. The legal moves of every depth
+ * are kept in arrays that are made once, so searching creates no objects.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package solver;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import engine.SpiderEngine;
+
+final class Search
+{
+	/*Number of positions searched between updates of the shared count*/
+	private static final int SHARED_STEP = 4096;
+
+	private final int maxDepth;
+
+	/*Set to stop the search, shared with everything that may stop it*/
+	private final AtomicBoolean stop;
+
+	/*Positions searched by every search sharing the count, and the most they may search*/
+	private final AtomicLong sharedNodes;
+	private final long sharedLimit;
+
+	/*Whether or not the search has a deadline, and the System.nanoTime() it must stop at*/
+	private boolean timed;
+	private long deadline;
+
+	/*The legal moves, sorted, and the next move to try at every depth of the search*/
+	private final int[][] moves;
+	private final int[] counts;
+	private final int[] next;
+	private final int[] scores;
+
+	/*Shuffles the order of the moves, by at most noise*/
+	private SplittableRandom random;
+	private int noise;
+
+	/*The winning moves of the last run, and the positions searched by this search*/
+	private int[] solution;
+	private long nodes;
+
+	/**
+	 * Creates a search
+	 * @param maxDepth the most moves searched in a row
+	 * @param stop set when the search should give up
+	 * @param sharedNodes the count of positions searched shared with other searches, or null
+	 * @param sharedLimit the most positions all searches sharing the count may search
+	 */
+	Search(int maxDepth, AtomicBoolean stop, AtomicLong sharedNodes, long sharedLimit)
+	{
+		this.maxDepth = maxDepth;
+		this.stop = stop;
+		this.sharedNodes = sharedNodes;
+		this.sharedLimit = sharedLimit;
+		moves = new int[maxDepth + 1][];
+		counts = new int[maxDepth + 1];
+		next = new int[maxDepth + 1];
+		scores = new int[SpiderEngine.legalMovesBound()];
+	}
+
+	/**
+	 * Sets how the order of the moves is shuffled
+	 * @param random the random numbers to shuffle with
+	 * @param noise the most any score is raised by at random, or 0 to not shuffle
+	 */
+	void shuffle(SplittableRandom random, int noise)
+	{
+		this.random = random;
+		this.noise = noise;
+	}
+
+	/**
+	 * Sets the time every run of the search stops at. Once it has passed,
+	 * the stop flag is set, so every search sharing it gives up too.
+	 * @param millis the milliseconds from now the search may run, or 0 for no limit
+	 */
+	void setDeadline(long millis)
+	{
+		timed = millis > 0;
+		deadline = System.nanoTime() + millis * 1000000L;
+	}
+
+	/**
+	 * Searches depth first from the position, which is left as it was.
+	 * The position itself is expected to already be in the table.
+	 * @param engine the position to search
+	 * @param table the positions already searched
+	 * @param progressOnly whether only moves that make progress are searched,
+	 * in which case not finding a win proves nothing
+	 * @param nodeLimit the most positions this search may have searched when it ends
+	 * @return the result of the search
+	 */
+	Solver.Result run(SpiderEngine engine, PositionTable table, boolean progressOnly, long nodeLimit)
+	{
+		solution = null;
+		boolean cutOff = progressOnly;
+		int depth = 0;
+		generate(engine, 0, progressOnly);
+		while(true)
+		{
+			if(next[depth] == counts[depth])
+			{
+				if(depth == 0)
+					return cutOff ? Solver.Result.UNKNOWN : Solver.Result.UNWINNABLE;
+				engine.undo();
+				depth--;
+				continue;
+			}
+			if(nodes >= nodeLimit || stop.get() || !countNode())
+			{
+				while(depth-- > 0)
+					engine.undo();
+				return Solver.Result.UNKNOWN;
+			}
+			int move = moves[depth][next[depth]++];
+			engine.apply(move);
+			if(engine.isOver())
+			{
+				solution = new int[depth + 1];
+				for(int d = 0; d < depth; d++)
+					solution[d] = moves[d][next[d] - 1];
+				solution[depth] = move;
+				while(depth-- >= 0)
+					engine.undo();
+				return Solver.Result.WINNABLE;
+			}
+			if(!table.add(engine.hash()))
+			{
+				engine.undo();
+				continue;
+			}
+			if(depth + 1 == maxDepth)
+			{
+				cutOff = true;
+				engine.undo();
+				continue;
+			}
+			depth++;
+			generate(engine, depth, progressOnly);
+		}
+	}
+
+	/**
+	 * @return the moves that won the last run, or null when it found no win
+	 */
+	int[] getSolution()
+	{
+		return solution;
+	}
+
+	/**
+	 * @return the number of positions searched by every run of this search
+	 */
+	long getNodes()
+	{
+		return nodes;
+	}
+
+	/**
+	 * Counts one more position searched, and checks the shared limit
+	 * and the deadline every SHARED_STEP positions
+	 * @return whether or not the shared limit of positions and the deadline still allow searching
+	 */
+	private boolean countNode()
+	{
+		nodes++;
+		if(nodes % SHARED_STEP != 0)
+			return true;
+		if(timed && System.nanoTime() - deadline >= 0)
+		{
+			stop.set(true);
+			return false;
+		}
+		return sharedNodes == null || sharedNodes.addAndGet(SHARED_STEP) < sharedLimit;
+	}
+
+	/**
+	 * Writes the sorted legal moves of the position at the depth
+	 */
+	private void generate(SpiderEngine engine, int depth, boolean progressOnly)
+	{
+		if(moves[depth] == null)
+			moves[depth] = new int[SpiderEngine.legalMovesBound()];
+		counts[depth] = engine.legalMoves(moves[depth]);
+		if(progressOnly)
+			counts[depth] = MoveOrder.filter(engine, moves[depth], counts[depth]);
+		next[depth] = 0;
+		MoveOrder.sort(engine, moves[depth], counts[depth], scores, random, noise);
+	}
+}
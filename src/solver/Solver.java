@@ -0,0 +1,188 @@
+/**
+ * Solver.java
+ * Decides whether a position of spider solitaire can be won, knowing every
+ * face down card and the order of the draw stack, and finds the moves that win it.
+ * The search is depth first over the moves of the SpiderEngine, best moves first,
+ * and uses the engine's hash and a TranspositionTable so that no position
+ * is searched twice.
+ * Wins are looked for first among the moves that make progress, by many short
+ * searches that each try the moves in a slightly shuffled order, since one
+ * bad early move can trap a single long search. When none of them wins,
+ * every move is searched, which proves a loss if the search finishes.
+ * The search can be limited in depth, in positions searched and in time,
+ * in which case a position that was not fully searched is UNKNOWN.
+ * By default a search gives up after half a second: most 1 and 2 suit deals
+ * are decided well within it, and the few that are not can take many seconds.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package solver;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import engine.SpiderEngine;
+import metrics.SearchEvent;
+
+public class Solver
+{
+	/**
+	 * The outcome of a search
+	 */
+	public enum Result
+	{
+		WINNABLE, UNWINNABLE, UNKNOWN
+	}
+
+	/*Default size of the table and limits of the search*/
+	public static final int DEFAULT_TABLE_BITS = 22;
+	public static final int DEFAULT_MAX_DEPTH = 1000;
+	public static final long DEFAULT_MAX_NODES = 20000000;
+	public static final long DEFAULT_MAX_MILLIS = 500;
+
+	/*Number of short searches, positions searched by each, and how much their order is shuffled*/
+	static final int RESTARTS = 600;
+	private static final long RESTART_NODES = 5000;
+	private static final int NOISE = 50;
+
+	/*Seed of the shuffling, so that every solve of a position does the same*/
+	private static final long SEED = 0x5EED;
+
+	private final TranspositionTable table;
+	private final long maxNodes;
+	private final long maxMillis;
+	private final Search search;
+
+	/*Set when the search is asked to give up*/
+	private final AtomicBoolean stopped;
+
+	/*The winning moves of the last search*/
+	private int[] solution;
+	/*Number of positions searched by the last search*/
+	private long nodes;
+
+	/**
+	 * Creates a solver with the default table size and limits, including the time limit
+	 */
+	public Solver()
+	{
+		this(DEFAULT_TABLE_BITS, DEFAULT_MAX_DEPTH, DEFAULT_MAX_NODES, DEFAULT_MAX_MILLIS);
+	}
+
+	/**
+	 * Creates a solver with no time limit, so its results do not depend on how fast the computer is
+	 * @param tableBits the log base 2 of the number of positions the table holds
+	 * @param maxDepth the most moves searched in a row
+	 * @param maxNodes the most positions searched before giving up
+	 */
+	public Solver(int tableBits, int maxDepth, long maxNodes)
+	{
+		this(tableBits, maxDepth, maxNodes, 0);
+	}
+
+	/**
+	 * Creates a solver
+	 * @param tableBits the log base 2 of the number of positions the table holds
+	 * @param maxDepth the most moves searched in a row
+	 * @param maxNodes the most positions searched before giving up
+	 * @param maxMillis the most milliseconds each solve may take, or 0 for no limit
+	 */
+	public Solver(int tableBits, int maxDepth, long maxNodes, long maxMillis)
+	{
+		table = new TranspositionTable(tableBits);
+		this.maxNodes = maxNodes;
+		this.maxMillis = maxMillis;
+		stopped = new AtomicBoolean();
+		search = new Search(maxDepth, stopped, null, 0);
+	}
+
+	/**
+	 * Searches the position for a win. The position itself is not changed.
+	 * @param position the position to search
+	 * @return whether the position is winnable, unwinnable, or unknown
+	 * when the search ran out of depth, positions or time or was stopped
+	 */
+	public Result solve(SpiderEngine position)
+	{
+		SearchEvent event = new SearchEvent();
+		event.begin();
+		SpiderEngine engine = position.fork();
+		stopped.set(false);
+		search.setDeadline(maxMillis);
+		long start = search.getNodes();
+		long limit = start + maxNodes;
+		Result result = restarts(engine, search, table, limit, 0, RESTARTS, stopped);
+		if(result == Result.UNKNOWN && search.getNodes() < limit && !stopped.get())
+		{
+			search.shuffle(null, 0);
+			table.newSearch();
+			table.add(engine.hash());
+			result = search.run(engine, table, false, limit);
+		}
+		nodes = search.getNodes() - start;
+		solution = engine.isOver() ? new int[0] : search.getSolution();
+		if(event.shouldCommit())
+		{
+			event.result = result.name();
+			event.nodes = nodes;
+			event.moves = solution == null ? 0 : solution.length;
+			event.threads = 1;
+			event.commit();
+		}
+		return result;
+	}
+
+	/**
+	 * Runs some of the short searches over the moves that make progress,
+	 * until one of them finds a win
+	 * @param engine the position to search, which is left as it was
+	 * @param search the search to run
+	 * @param table the table of positions searched
+	 * @param limit the most positions the search may have searched when it ends
+	 * @param first the index of the first short search to run
+	 * @param last the index after the last short search to run
+	 * @param stop set when the search should give up
+	 * @return WINNABLE if a win was found, otherwise UNKNOWN
+	 */
+	static Result restarts(SpiderEngine engine, Search search, PositionTable table, long limit,
+			int first, int last, AtomicBoolean stop)
+	{
+		if(engine.isOver())
+			return Result.WINNABLE;
+		Result result = Result.UNKNOWN;
+		for(int i = first; i < last && result == Result.UNKNOWN && search.getNodes() < limit && !stop.get(); i++)
+		{
+			search.shuffle(new SplittableRandom(SEED + i), i == 0 ? 0 : NOISE);
+			table.newSearch();
+			table.add(engine.hash());
+			result = search.run(engine, table, true, Math.min(limit, search.getNodes() + RESTART_NODES));
+		}
+		return result;
+	}
+
+	/**
+	 * Asks a running search to give up, from any thread
+	 */
+	public void stop()
+	{
+		stopped.set(true);
+	}
+
+	/**
+	 * @return the moves that win the position of the last search,
+	 * or null when it was not found winnable
+	 */
+	public int[] getSolution()
+	{
+		return solution == null ? null : Arrays.copyOf(solution, solution.length);
+	}
+
+	/**
+	 * @return the number of positions searched by the last search
+	 */
+	public long getNodes()
+	{
+		return nodes;
+	}
+}
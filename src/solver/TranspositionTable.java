@@ -0,0 +1,119 @@
+/**
+ * TranspositionTable.java
+ * A fixed size table of the hashes of positions that have already been
+ * searched, so a position reached by different orders of moves is only
+ * searched once. The table never grows: hashes are kept in buckets of four,
+ * and when a bucket is full one of its hashes is replaced. Forgetting a
+ * position only means it may be searched again.
+ *
+ * @author Briana Zhang & Lucy Zheng
+ */
+
+package solver;
+
+import java.util.Arrays;
+
+public class TranspositionTable implements PositionTable
+{
+	/*Number of hashes per bucket*/
+	static final int BUCKET = 4;
+	/*Step between the salts of two searches*/
+	static final long SALT_STEP = 0x9E3779B97F4A7C15L;
+
+	/*The stored hashes, where 0 is an empty slot*/
+	private final long[] table;
+	private final int mask;
+	/*Changes the hashes of each new search*/
+	private long salt;
+
+	/**
+	 * Creates a table that holds 2^bits hashes
+	 * @param bits the log base 2 of the number of hashes held
+	 */
+	public TranspositionTable(int bits)
+	{
+		table = new long[1 << Math.max(bits, 2)];
+		mask = table.length - BUCKET;
+	}
+
+	/**
+	 * Adds the hash of a position to the table
+	 * @param hash the hash of the position
+	 * @return whether or not the hash was new to the table
+	 */
+	@Override
+	public boolean add(long hash)
+	{
+		hash ^= salt;
+		if(hash == 0)
+			hash = 1;
+		int bucket = index(hash, mask);
+		for(int i = bucket; i < bucket + BUCKET; i++)
+		{
+			if(table[i] == hash)
+				return false;
+			if(table[i] == 0)
+			{
+				table[i] = hash;
+				return true;
+			}
+		}
+		table[bucket + (int) (hash >>> 62)] = hash;
+		return true;
+	}
+
+	/**
+	 * @param hash the hash of a position
+	 * @return whether or not the hash is in the table
+	 */
+	public boolean contains(long hash)
+	{
+		hash ^= salt;
+		if(hash == 0)
+			hash = 1;
+		int bucket = index(hash, mask);
+		for(int i = bucket; i < bucket + BUCKET; i++)
+		{
+			if(table[i] == hash)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Empties the table
+	 */
+	public void clear()
+	{
+		Arrays.fill(table, 0);
+		salt = 0;
+	}
+
+	/**
+	 * Forgets every hash without clearing the memory, by salting
+	 * the hashes added from now on so they never match the old ones
+	 */
+	@Override
+	public void newSearch()
+	{
+		salt += SALT_STEP;
+	}
+
+	/**
+	 * @return the number of hashes the table holds
+	 */
+	public int capacity()
+	{
+		return table.length;
+	}
+
+	/**
+	 * @param hash the hash of a position
+	 * @param mask the mask of the first slot of a bucket
+	 * @return the first slot of the bucket of the hash
+	 */
+	static int index(long hash, int mask)
+	{
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+}